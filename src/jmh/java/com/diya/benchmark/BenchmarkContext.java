@@ -0,0 +1,40 @@
+package com.diya.benchmark;
+
+import com.diya.EcommerceApplication;
+import com.diya.model.Product;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.UUID;
+
+// Starts the full application against the configured datasource, the same way the tests do,
+// on a random port so a benchmark can run next to a local instance
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(EcommerceApplication.class)
+                .properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static Product newProduct(String prefix, int stock) {
+        String suffix = UUID.randomUUID().toString();
+        return Product.builder()
+                .name(prefix + " " + suffix)
+                .slug(prefix.toLowerCase() + "-" + suffix)
+                .price(BigDecimal.TEN)
+                .stock(stock)
+                .sku(prefix.toUpperCase() + "-" + suffix)
+                .images(new ArrayList<>())
+                .attributes(new HashSet<>())
+                .active(true)
+                .build();
+    }
+}
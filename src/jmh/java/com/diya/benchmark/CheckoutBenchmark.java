@@ -0,0 +1,128 @@
+package com.diya.benchmark;
+
+import com.diya.dto.request.CartItemRequest;
+import com.diya.dto.request.CheckoutRequest;
+import com.diya.dto.response.OrderResponse;
+import com.diya.model.Address;
+import com.diya.model.User;
+import com.diya.repository.AddressRepository;
+import com.diya.repository.ProductRepository;
+import com.diya.repository.UserRepository;
+import com.diya.service.CartService;
+import com.diya.service.CheckoutService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Checkout latency against the number of cart lines. The cart is refilled before every call and
+// only CheckoutService.checkout is timed: stock decrement, the batched order, item and payment
+// inserts, and clearing the cart. SampleTime reports the percentiles per line count.
+// Run: ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.include=CheckoutBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class CheckoutBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "10", "30", "100"})
+    public int lines;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private CheckoutService checkoutService;
+    private ProductRepository productRepository;
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+    private CheckoutRequest checkoutRequest;
+    private final List<Long> productIds = new ArrayList<>();
+
+    @Setup
+    public void start() {
+        context = BenchmarkContext.start();
+        cartService = context.getBean(CartService.class);
+        checkoutService = context.getBean(CheckoutService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .email("checkout-benchmark-" + UUID.randomUUID() + "@example.com")
+                .password("not-used")
+                .firstName("Checkout")
+                .lastName("Benchmark")
+                .role(User.Role.CUSTOMER)
+                .enabled(true)
+                .build());
+        Address address = context.getBean(AddressRepository.class).save(Address.builder()
+                .user(user)
+                .fullName("Checkout Benchmark")
+                .addressLine1("1 Benchmark Street")
+                .city("Kyiv")
+                .state("Kyiv")
+                .postalCode("01001")
+                .country("UA")
+                .type(Address.AddressType.BOTH)
+                .build());
+        checkoutRequest = CheckoutRequest.builder()
+                .shippingAddressId(address.getId())
+                .paymentMethod("CASH_ON_DELIVERY")
+                .shippingMethod("standard")
+                .build();
+
+        for (int i = 0; i < lines; i++) {
+            productIds.add(productRepository.save(BenchmarkContext.newProduct("Checkout", STOCK)).getId());
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCart() {
+        for (Long productId : productIds) {
+            cartService.addToCart(user.getEmail(), new CartItemRequest(productId, 1));
+        }
+    }
+
+    @TearDown
+    public void stop() {
+        Long userId = user.getId();
+        String userOrders = "SELECT id FROM orders WHERE user_id = ?";
+        String userCarts = "SELECT id FROM carts WHERE user_id = ?";
+        jdbcTemplate.update("DELETE FROM payments WHERE order_id IN (" + userOrders + ")", userId);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + userOrders + ")", userId);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM stock_reservations WHERE cart_id IN (" + userCarts + ")", userId);
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (" + userCarts + ")", userId);
+        jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM addresses WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM product_sales WHERE product_id = ?", productId);
+            productRepository.deleteById(productId);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public OrderResponse checkout() {
+        return checkoutService.checkout(user.getEmail(), checkoutRequest);
+    }
+}
@@ -0,0 +1,104 @@
+package com.diya.benchmark;
+
+import com.diya.model.User;
+import com.diya.repository.UserRepository;
+import com.diya.security.JwtAuthenticationFilter;
+import com.diya.security.JwtTokenProvider;
+import com.diya.security.JwtUserDetailsService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Cost of authenticating one request in JwtAuthenticationFilter. principalFromClaims is the current
+// path; principalWithUserLookup adds the users SELECT the filter used to run on every request. With
+// tokenCache=false every call parses and verifies the signature, as for a token seen the first time.
+// Run: ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.include=JwtFilterBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"true", "false"})
+    public boolean tokenCache;
+
+    private ConfigurableApplicationContext context;
+    private JwtAuthenticationFilter filter;
+    private JwtUserDetailsService userDetailsService;
+    private UserRepository userRepository;
+    private User user;
+    private String authorization;
+
+    @Setup
+    public void start() {
+        context = tokenCache
+                ? BenchmarkContext.start()
+                : BenchmarkContext.start("app.security.token-cache.max-size=0");
+        filter = context.getBean(JwtAuthenticationFilter.class);
+        userDetailsService = context.getBean(JwtUserDetailsService.class);
+        userRepository = context.getBean(UserRepository.class);
+        user = userRepository.save(User.builder()
+                .email("filter-benchmark-" + UUID.randomUUID() + "@example.com")
+                .password("not-used")
+                .firstName("Filter")
+                .lastName("Benchmark")
+                .role(User.Role.CUSTOMER)
+                .enabled(true)
+                .build());
+        authorization = "Bearer " + context.getBean(JwtTokenProvider.class).createAccessTokenFromUsername(user.getEmail());
+    }
+
+    @TearDown
+    public void stop() {
+        userRepository.deleteById(user.getId());
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication principalFromClaims() throws Exception {
+        return authenticate();
+    }
+
+    @Benchmark
+    public UserDetails principalWithUserLookup() throws Exception {
+        Authentication authentication = authenticate();
+        return userDetailsService.loadUserByUsername(authentication.getName());
+    }
+
+    private Authentication authenticate() throws Exception {
+        // A fresh request each time, since OncePerRequestFilter skips a request it has already seen
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/cart");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.diya.benchmark;
+
+import com.diya.model.Product;
+import com.diya.repository.ProductRepository;
+import com.diya.service.InMemoryStockLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Reserving one unit of a hot product from concurrent threads: the in-memory ledger (CAS on the
+// counter plus a journal append) against the per-request read-modify-write save it replaces.
+// Each path gets its own product, so the ledger's write-behind flush never touches the saved row.
+// Run: ./mvnw -Pbenchmarks test-compile exec:exec -Djmh.include=StockLedgerBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class StockLedgerBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    private ConfigurableApplicationContext context;
+    private InMemoryStockLedger ledger;
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+    private Long ledgerProductId;
+    private Long savedProductId;
+
+    @Setup
+    public void start() throws Exception {
+        context = BenchmarkContext.start("app.inventory.mode=memory",
+                "app.inventory.journal-dir=" + Files.createTempDirectory("ledger-benchmark"));
+        ledger = context.getBean(InMemoryStockLedger.class);
+        productRepository = context.getBean(ProductRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        ledgerProductId = productRepository.save(BenchmarkContext.newProduct("Ledger", STOCK)).getId();
+        savedProductId = productRepository.save(BenchmarkContext.newProduct("Saved", STOCK)).getId();
+    }
+
+    @TearDown
+    public void stop() {
+        ledger.flush();
+        productRepository.deleteById(ledgerProductId);
+        productRepository.deleteById(savedProductId);
+        context.close();
+    }
+
+    @Benchmark
+    public boolean ledgerReserve() {
+        return ledger.tryReserve(ledgerProductId, 1, 0);
+    }
+
+    @Benchmark
+    public Product saveReadModifyWrite() {
+        return transactionTemplate.execute(status -> {
+            Product product = productRepository.findById(savedProductId).orElseThrow();
+            product.setStock(product.getStock() - 1);
+            return productRepository.save(product);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.diya.config;
+
+import com.diya.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Creates the database objects that Hibernate schema generation cannot express
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseSchemaInitializer implements CommandLineRunner {
+
+    // Tables whose ids moved from identity columns to pooled sequences
+    private static final List<String> SEQUENCE_TABLES = List.of("orders", "order_items", "payments");
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        log.info("Ensuring database schema...");
+
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_products_search ON products USING GIN ("
+                + ProductRepository.SEARCH_VECTOR + ")");
+
+        // Rows inserted while the ids were identity-generated must not collide with pooled sequence values
+        for (String table : SEQUENCE_TABLES) {
+            String sequence = table + "_seq";
+            jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', GREATEST((SELECT last_value FROM " + sequence + "), " +
+                    "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + SEQUENCE_ALLOCATION_SIZE + "))", Long.class);
+        }
+
+        migrateRefreshTokensToHashes();
+        backfillCategoryPaths();
+
+        log.info("Database schema is up to date.");
+    }
+
+    // Refresh tokens used to be stored raw in a "token" column. Existing rows keep working because
+    // the stored hash is the SHA-256 of the same string clients present. During a rolling deploy the
+    // previous release still inserts raw tokens, so the column is only made nullable and a trigger
+    // fills in the hash of such rows; a rollback finds the column where it left it. The column, the
+    // trigger and its function are dropped in a later release, once no node writes "token" any more.
+    private void migrateRefreshTokensToHashes() {
+        Integer legacyColumns = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'refresh_tokens' AND column_name = 'token'", Integer.class);
+        if (legacyColumns != null && legacyColumns > 0) {
+            jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN token DROP NOT NULL");
+            jdbcTemplate.execute("CREATE OR REPLACE FUNCTION refresh_tokens_hash_legacy_token() RETURNS trigger AS $$ " +
+                    "BEGIN " +
+                    "IF NEW.token_hash IS NULL AND NEW.token IS NOT NULL THEN " +
+                    "NEW.token_hash := sha256(convert_to(NEW.token, 'UTF8')); " +
+                    "END IF; " +
+                    "RETURN NEW; " +
+                    "END $$ LANGUAGE plpgsql");
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS refresh_tokens_hash_legacy_token ON refresh_tokens");
+            jdbcTemplate.execute("CREATE TRIGGER refresh_tokens_hash_legacy_token BEFORE INSERT OR UPDATE ON refresh_tokens " +
+                    "FOR EACH ROW EXECUTE FUNCTION refresh_tokens_hash_legacy_token()");
+            jdbcTemplate.execute("UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8')) " +
+                    "WHERE token_hash IS NULL AND token IS NOT NULL");
+        }
+        jdbcTemplate.execute("DELETE FROM refresh_tokens WHERE token_hash IS NULL");
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL");
+    }
+
+    // Recomputes materialized category paths from parent_id and fixes any that are missing or stale
+    private void backfillCategoryPaths() {
+        int updated = jdbcTemplate.update("WITH RECURSIVE tree AS (" +
+                "SELECT id, '/' || id || '/' AS path FROM categories WHERE parent_id IS NULL " +
+                "UNION ALL " +
+                "SELECT c.id, t.path || c.id || '/' FROM categories c JOIN tree t ON c.parent_id = t.id) " +
+                "UPDATE categories c SET path = tree.path FROM tree " +
+                "WHERE c.id = tree.id AND c.path IS DISTINCT FROM tree.path");
+        if (updated > 0) {
+            log.info("Backfilled {} category paths", updated);
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_categories_path ON categories (path varchar_pattern_ops)");
+    }
+}
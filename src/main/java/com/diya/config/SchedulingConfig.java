@@ -0,0 +1,52 @@
+package com.diya.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+// Runs @Scheduled jobs on a dedicated pool, so a slow job does not hold up the others
+@Configuration
+@EnableScheduling
+@Slf4j
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    @Value("${app.scheduling.pool-size:4}")
+    private int poolSize;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    public TaskScheduler taskScheduler() {
+        if (virtualThreads) {
+            // Each run gets its own virtual thread; the limit keeps the same number of jobs in flight
+            SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+            scheduler.setVirtualThreads(true);
+            scheduler.setConcurrencyLimit(poolSize);
+            scheduler.setThreadNamePrefix("scheduler-");
+            scheduler.setErrorHandler(ex -> log.error("Scheduled task failed", ex));
+            scheduler.setTaskTerminationTimeout(30_000);
+            return scheduler;
+        }
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduler-");
+        scheduler.setErrorHandler(ex -> log.error("Scheduled task failed", ex));
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(taskScheduler());
+    }
+}
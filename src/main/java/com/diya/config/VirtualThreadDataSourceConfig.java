@@ -0,0 +1,33 @@
+package com.diya.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// With virtual threads Tomcat no longer caps concurrent requests, so only the requests that actually
+// need a connection should wait, and not for long. Hikari already queues them fairly; this shortens
+// the wait so a saturated pool answers 503 quickly instead of holding callers for the default 30s.
+// Requests served from memory, logins and uploads never touch the pool and are not held back.
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadDataSourceConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionTimeoutPostProcessor(Environment environment) {
+        long connectionTimeoutMs = environment.getProperty(
+                "app.virtual-threads.connection-timeout-ms", Long.class, 2000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Runs after spring.datasource.hikari.* is bound and before the pool starts on first use
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.setConnectionTimeout(connectionTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+}
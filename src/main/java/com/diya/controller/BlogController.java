@@ -3,6 +3,7 @@ package com.diya.controller;
 
 import com.diya.dto.request.BlogPostRequest;
 import com.diya.dto.response.BlogPostResponse;
+import com.diya.dto.response.CursorPagedResponse;
 import com.diya.dto.response.PagedResponse;
 import com.diya.service.BlogService;
 import jakarta.validation.Valid;
@@ -39,6 +40,19 @@ public class BlogController {
         return ResponseEntity.ok(blogService.getAllPublishedPosts(pageable));
     }
 
+    @GetMapping("/posts/scroll")
+    public ResponseEntity<CursorPagedResponse<BlogPostResponse>> scrollPublishedPosts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "none") String total) {
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ?
+                Sort.Direction.DESC : Sort.Direction.ASC;
+
+        return ResponseEntity.ok(blogService.scrollPublishedPosts(cursor, size, sortDirection, total));
+    }
+
     @GetMapping("/posts/all")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<PagedResponse<BlogPostResponse>> getAllPosts(
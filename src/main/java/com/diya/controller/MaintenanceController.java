@@ -0,0 +1,25 @@
+package com.diya.controller;
+
+import com.diya.dto.response.PurgeReportResponse;
+import com.diya.service.TokenPurgeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/admin/maintenance")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class MaintenanceController {
+
+    private final TokenPurgeService tokenPurgeService;
+
+    @PostMapping("/token-purge")
+    public ResponseEntity<List<PurgeReportResponse>> purgeTokens(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        return ResponseEntity.ok(tokenPurgeService.purgeAll(dryRun));
+    }
+}
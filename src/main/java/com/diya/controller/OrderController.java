@@ -4,6 +4,7 @@ package com.diya.controller;
 
 import com.diya.dto.request.CheckoutRequest;
 import com.diya.dto.request.OrderStatusUpdateRequest;
+import com.diya.dto.response.CursorPagedResponse;
 import com.diya.dto.response.OrderResponse;
 import com.diya.dto.response.PagedResponse;
 import com.diya.service.OrderService;
@@ -29,8 +30,9 @@ public class OrderController {
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<OrderResponse> checkout(
             @AuthenticationPrincipal UserDetails userDetails,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody CheckoutRequest checkoutRequest) {
-        return ResponseEntity.ok(orderService.checkout(userDetails.getUsername(), checkoutRequest));
+        return ResponseEntity.ok(orderService.checkout(userDetails.getUsername(), idempotencyKey, checkoutRequest));
     }
 
     @GetMapping("/orders")
@@ -72,6 +74,20 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders(pageable));
     }
 
+    @GetMapping("/admin/orders/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPagedResponse<OrderResponse>> scrollOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "none") String total) {
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ?
+                Sort.Direction.DESC : Sort.Direction.ASC;
+
+        return ResponseEntity.ok(orderService.scrollOrders(cursor, size, sortDirection, total));
+    }
+
     @PutMapping("/admin/orders/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<OrderResponse> updateOrderStatus(
@@ -2,18 +2,27 @@
 package com.diya.controller;
 
 import com.diya.dto.request.ProductRequest;
+import com.diya.dto.response.AutocompleteSuggestionResponse;
+import com.diya.dto.response.BestSellerResponse;
+import com.diya.dto.response.CursorPagedResponse;
+import com.diya.dto.response.FacetSearchResponse;
 import com.diya.dto.response.PagedResponse;
 import com.diya.dto.response.ProductResponse;
+import com.diya.service.BestSellerService;
+import com.diya.service.ProductFacetService;
 import com.diya.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -22,6 +31,8 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final BestSellerService bestSellerService;
+    private final ProductFacetService productFacetService;
 
     @GetMapping
     public ResponseEntity<PagedResponse<ProductResponse>> getAllProducts(
@@ -37,6 +48,49 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts(pageable));
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPagedResponse<ProductResponse>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "none") String total) {
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("desc") ?
+                Sort.Direction.DESC : Sort.Direction.ASC;
+
+        return ResponseEntity.ok(productService.scrollProducts(cursor, size, sortBy, sortDirection, total));
+    }
+
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<AutocompleteSuggestionResponse>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(productService.autocomplete(q, limit));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<FacetSearchResponse> searchFacets(
+            @RequestParam(name = "attr", required = false) List<String> attributes,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(productFacetService.search(attributes, categoryId, includeSubcategories,
+                minPrice, maxPrice, inStock, page, size));
+    }
+
+    @GetMapping("/best-sellers")
+    public ResponseEntity<List<BestSellerResponse>> getBestSellers(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) Long categoryId) {
+        return ResponseEntity.ok(bestSellerService.getBestSellers(limit, date, categoryId));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
         return ResponseEntity.ok(productService.getProductById(id));
@@ -50,6 +104,7 @@ public class ProductController {
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<PagedResponse<ProductResponse>> getProductsByCategory(
             @PathVariable Long categoryId,
+            @RequestParam(defaultValue = "false") boolean includeSubcategories,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
@@ -59,7 +114,7 @@ public class ProductController {
                 Sort.Direction.DESC : Sort.Direction.ASC;
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
-        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, pageable));
+        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, includeSubcategories, pageable));
     }
 
     @GetMapping("/search")
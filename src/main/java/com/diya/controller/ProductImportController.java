@@ -0,0 +1,45 @@
+package com.diya.controller;
+
+import com.diya.dto.response.PagedResponse;
+import com.diya.dto.response.ProductImportErrorResponse;
+import com.diya.dto.response.ProductImportJobResponse;
+import com.diya.service.ProductImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+@RestController
+@RequestMapping("/api/v1/admin/products/import")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ProductImportController {
+
+    private final ProductImportService productImportService;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductImportJobResponse> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.accepted().body(productImportService.createJob(file, format, userDetails.getUsername()));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ProductImportJobResponse> getJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(productImportService.getJob(jobId));
+    }
+
+    @GetMapping("/{jobId}/errors")
+    public ResponseEntity<PagedResponse<ProductImportErrorResponse>> getErrors(
+            @PathVariable Long jobId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(productImportService.getErrors(jobId, PageRequest.of(page, size)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.diya.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteSuggestionResponse {
+    // "product" or "category"
+    private String type;
+    private Long id;
+    private String text;
+    private String slug;
+}
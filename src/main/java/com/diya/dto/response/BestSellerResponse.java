@@ -0,0 +1,15 @@
+package com.diya.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BestSellerResponse {
+    private ProductResponse product;
+    private Long quantitySold;
+}
@@ -0,0 +1,21 @@
+package com.diya.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetSearchResponse {
+    private PagedResponse<ProductResponse> products;
+    // attribute key -> value -> matching products, ignoring the filter on that key itself
+    private Map<String, Map<String, Long>> attributes;
+    // category id -> matching products directly in that category
+    private Map<Long, Long> categories;
+    private long inStock;
+}
@@ -0,0 +1,16 @@
+package com.diya.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportErrorResponse {
+    private long rowNumber;
+    private String sku;
+    private String message;
+}
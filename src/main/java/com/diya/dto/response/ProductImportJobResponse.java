@@ -0,0 +1,26 @@
+package com.diya.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJobResponse {
+    private Long id;
+    private String filename;
+    private String format;
+    private String status;
+    private long rowsProcessed;
+    private long rowsImported;
+    private long rowsFailed;
+    private String errorMessage;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,20 @@
+package com.diya.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurgeReportResponse {
+    private String table;
+    private boolean dryRun;
+    private long rowsMatched;
+    private long rowsDeleted;
+    private int chunks;
+    private long durationMs;
+    private double rowsPerSecond;
+}
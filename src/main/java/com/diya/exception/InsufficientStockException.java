@@ -1,8 +1,22 @@
-
 package com.diya.exception;
 
+import java.util.List;
+
 public class InsufficientStockException extends RuntimeException {
+
+    private final List<String> skus;
+
     public InsufficientStockException(String message) {
         super(message);
+        this.skus = List.of();
+    }
+
+    public InsufficientStockException(String message, List<String> skus) {
+        super(message);
+        this.skus = List.copyOf(skus);
+    }
+
+    public List<String> getSkus() {
+        return skus;
     }
 }
@@ -4,13 +4,41 @@ package com.diya.mapper;
 import com.diya.dto.request.CategoryRequest;
 import com.diya.dto.response.CategoryResponse;
 import com.diya.model.Category;
+import com.diya.service.CategoryTree;
+import com.diya.service.CategoryTreeService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 
 @Component
+@RequiredArgsConstructor
 public class CategoryMapper {
 
+    private final CategoryTreeService categoryTreeService;
+
+    // For categories referenced by other entities: reads the snapshot instead of the lazy entity
+    public CategoryResponse toSnapshotResponse(Category category) {
+        return categoryTreeService.getTree().findById(category.getId())
+                .map(this::toCategoryResponse)
+                .orElseGet(() -> toCategoryResponse(category));
+    }
+
+    public CategoryResponse toCategoryResponse(CategoryTree.Node node) {
+        return CategoryResponse.builder()
+                .id(node.id())
+                .name(node.name())
+                .slug(node.slug())
+                .description(node.description())
+                .imageUrl(node.imageUrl())
+                .parentId(node.parentId())
+                .parentName(node.parentName())
+                .hasChildren(node.hasChildren())
+                .createdAt(node.createdAt())
+                .updatedAt(node.updatedAt())
+                .build();
+    }
+
     public CategoryResponse toCategoryResponse(Category category) {
         return CategoryResponse.builder()
                 .id(category.getId())
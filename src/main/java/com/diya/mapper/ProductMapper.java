@@ -31,7 +31,7 @@ public class ProductMapper {
                 .discountPrice(product.getDiscountPrice())
                 .stock(product.getStock())
                 .sku(product.getSku())
-                .category(product.getCategory() != null ? categoryMapper.toCategoryResponse(product.getCategory()) : null)
+                .category(product.getCategory() != null ? categoryMapper.toSnapshotResponse(product.getCategory()) : null)
                 .images(product.getImages())
                 .attributes(attributesMap)
                 .active(product.isActive())
@@ -53,12 +53,7 @@ public class ProductMapper {
         if (request.getSlug() != null) {
             product.setSlug(request.getSlug());
         } else if (product.getSlug() == null) {
-            String slug = request.getName()
-                    .toLowerCase()
-                    .replaceAll("[^a-z0-9]", "-")
-                    .replaceAll("-+", "-")
-                    .replaceAll("^-|-$", "");
-            product.setSlug(slug);
+            product.setSlug(slugify(request.getName()));
         }
         
         product.setDescription(request.getDescription());
@@ -84,4 +79,12 @@ public class ProductMapper {
         }
         product.setUpdatedAt(LocalDateTime.now());
     }
+
+    public static String slugify(String name) {
+        return name
+                .toLowerCase()
+                .replaceAll("[^a-z0-9]", "-")
+                .replaceAll("-+", "-")
+                .replaceAll("^-|-$", "");
+    }
 }
@@ -32,7 +32,7 @@ public class PromotionMapper {
                 .usageCount(promotion.getUsageCount())
                 .active(promotion.isActive())
                 .applicableCategories(promotion.getApplicableCategories().stream()
-                        .map(categoryMapper::toCategoryResponse)
+                        .map(categoryMapper::toSnapshotResponse)
                         .collect(Collectors.toList()))
                 .applicableProducts(promotion.getApplicableProducts().stream()
                         .map(productMapper::toProductResponse)
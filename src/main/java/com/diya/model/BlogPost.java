@@ -16,7 +16,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "blog_posts")
+@Table(name = "blog_posts", indexes = @Index(name = "idx_blog_posts_published_at_id", columnList = "published, publishedAt, id"))
 public class BlogPost {
 
     @Id
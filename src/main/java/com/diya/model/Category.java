@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -16,6 +17,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@BatchSize(size = 50)
 @Table(name = "categories")
 public class Category {
 
@@ -35,11 +37,17 @@ public class Category {
     @Column
     private String imageUrl;
 
+    // Materialized path of ids from the root, e.g. "/1/5/12/". A subtree is every path with this
+    // node's path as its prefix; the varchar_pattern_ops index is created by DatabaseSchemaInitializer.
+    @Column(length = 1000)
+    private String path;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
     private Category parent;
 
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL)
+    @BatchSize(size = 50)
     private List<Category> children = new ArrayList<>();
 
     @OneToMany(mappedBy = "category")
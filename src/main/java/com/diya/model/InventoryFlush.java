@@ -0,0 +1,25 @@
+package com.diya.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "inventory_flushes")
+public class InventoryFlush {
+
+    @Id
+    @Column(nullable = false)
+    private String segmentId;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -6,6 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -19,7 +21,12 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "products")
+@DynamicUpdate
+@BatchSize(size = 50)
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_products_category_id", columnList = "category_id")
+})
 public class Product {
 
     @Id
@@ -52,11 +59,13 @@ public class Product {
     private Category category;
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url")
     private List<String> images = new ArrayList<>();
 
     @ElementCollection
+    @BatchSize(size = 50)
     @CollectionTable(name = "product_attributes", joinColumns = @JoinColumn(name = "product_id"))
     @MapKeyColumn(name = "attribute_key")
     @Column(name = "attribute_value")
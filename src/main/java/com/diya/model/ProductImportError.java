@@ -0,0 +1,33 @@
+package com.diya.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A row of a bulk import that was rejected. rowNumber is 1-based and does not count a CSV header.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "product_import_errors", indexes = @Index(name = "idx_product_import_errors_job_row", columnList = "job_id, row_number"))
+public class ProductImportError {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "row_number", nullable = false)
+    private long rowNumber;
+
+    @Column(length = 255)
+    private String sku;
+
+    @Column(nullable = false, length = 1000)
+    private String message;
+}
@@ -0,0 +1,34 @@
+package com.diya.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// Units sold per product per day, kept in step with order items by checkout and cancellation
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "product_sales",
+        uniqueConstraints = @UniqueConstraint(name = "uk_product_sales_product_date", columnNames = {"product_id", "sale_date"}),
+        indexes = @Index(name = "idx_product_sales_date", columnList = "sale_date"))
+public class ProductSales {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(nullable = false)
+    private Long quantity;
+}
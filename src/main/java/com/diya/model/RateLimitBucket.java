@@ -0,0 +1,29 @@
+package com.diya.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Token bucket shared by all nodes when app.rate-limit.store=jdbc
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "rate_limit_buckets", indexes = @Index(name = "idx_rate_limit_buckets_updated_at", columnList = "updated_at"))
+public class RateLimitBucket {
+
+    @Id
+    @Column(name = "bucket_key")
+    private String bucketKey;
+
+    @Column(nullable = false)
+    private double tokens;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
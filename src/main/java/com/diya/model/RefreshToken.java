@@ -21,8 +21,10 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
-    private String token;
+    // SHA-256 of the token handed to the client; the raw token is never stored.
+    // NOT NULL is applied by DatabaseSchemaInitializer once legacy rows are migrated.
+    @Column(name = "token_hash", unique = true, length = 32)
+    private byte[] tokenHash;
 
     @ManyToOne
     @JoinColumn(name = "user_id", nullable = false)
@@ -3,6 +3,7 @@ package com.diya.repository;
 
 import com.diya.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -19,4 +20,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findSubcategories(Long parentId);
     
     boolean existsByName(String name);
+
+    // Moves every descendant of a re-parented category along with it
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE categories SET path = :newPrefix || substring(path FROM char_length(:oldPrefix) + 1) " +
+                   "WHERE path LIKE :oldPrefix || '%' AND path <> :oldPrefix", nativeQuery = true)
+    int movePathPrefix(String oldPrefix, String newPrefix);
 }
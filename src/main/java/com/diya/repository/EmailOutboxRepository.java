@@ -0,0 +1,35 @@
+package com.diya.repository;
+
+import com.diya.model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Due emails, including claims whose lease lapsed; rows locked by another dispatcher are skipped
+    @Query(value = "SELECT * FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now " +
+                   "ORDER BY id LIMIT :batchSize FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<EmailOutbox> findDueForUpdate(LocalDateTime now, int batchSize);
+
+    long countByStatus(EmailOutbox.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.diya.model.EmailOutbox.Status.SENT, e.sentAt = :sentAt, " +
+           "e.lastError = NULL WHERE e.id = :id")
+    void markSent(Long id, LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, e.lastError = :lastError " +
+           "WHERE e.id = :id")
+    void markFailedAttempt(Long id, EmailOutbox.Status status, LocalDateTime nextAttemptAt, String lastError);
+}
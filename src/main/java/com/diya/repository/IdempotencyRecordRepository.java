@@ -0,0 +1,50 @@
+package com.diya.repository;
+
+import com.diya.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUsernameAndIdempotencyKey(String username, String idempotencyKey);
+
+    // Returns 1 when the caller now owns the key: it was unused, expired, or held by an abandoned claim
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (username, idempotency_key, request_hash, claim_token, status, locked_until, expires_at, created_at) " +
+                   "VALUES (:username, :idempotencyKey, :requestHash, :claimToken, 'IN_PROGRESS', :lockedUntil, :expiresAt, :now) " +
+                   "ON CONFLICT (username, idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, claim_token = EXCLUDED.claim_token, " +
+                   "status = 'IN_PROGRESS', response_body = NULL, locked_until = EXCLUDED.locked_until, " +
+                   "expires_at = EXCLUDED.expires_at, created_at = EXCLUDED.created_at " +
+                   "WHERE idempotency_keys.expires_at <= :now OR (idempotency_keys.status = 'IN_PROGRESS' " +
+                   "AND idempotency_keys.locked_until <= :now AND idempotency_keys.request_hash = EXCLUDED.request_hash)",
+           nativeQuery = true)
+    int claim(String username, String idempotencyKey, String requestHash, String claimToken,
+              LocalDateTime lockedUntil, LocalDateTime expiresAt, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.diya.model.IdempotencyRecord.Status.COMPLETED, " +
+           "r.responseBody = :responseBody WHERE r.username = :username AND r.idempotencyKey = :idempotencyKey " +
+           "AND r.claimToken = :claimToken")
+    int complete(String username, String idempotencyKey, String claimToken, String responseBody);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.username = :username AND r.idempotencyKey = :idempotencyKey " +
+           "AND r.claimToken = :claimToken AND r.status = com.diya.model.IdempotencyRecord.Status.IN_PROGRESS")
+    void release(String username, String idempotencyKey, String claimToken);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_keys WHERE id IN " +
+                   "(SELECT id FROM idempotency_keys WHERE expires_at <= :now ORDER BY id LIMIT :batchSize)",
+           nativeQuery = true)
+    int deleteExpiredBatch(LocalDateTime now, int batchSize);
+}
@@ -0,0 +1,9 @@
+package com.diya.repository;
+
+import com.diya.model.InventoryFlush;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryFlushRepository extends JpaRepository<InventoryFlush, String> {
+}
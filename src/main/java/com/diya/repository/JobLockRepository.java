@@ -0,0 +1,28 @@
+package com.diya.repository;
+
+import com.diya.model.JobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLock, String> {
+
+    // Returns 1 when the lease was free (never taken or lapsed) and now belongs to the caller
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO job_locks (name, locked_until, locked_at, locked_by) VALUES (:name, :lockedUntil, :now, :owner) " +
+                   "ON CONFLICT (name) DO UPDATE SET locked_until = EXCLUDED.locked_until, locked_at = EXCLUDED.locked_at, " +
+                   "locked_by = EXCLUDED.locked_by WHERE job_locks.locked_until <= :now",
+           nativeQuery = true)
+    int tryAcquire(String name, String owner, LocalDateTime lockedUntil, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLock l SET l.lockedUntil = :lockedUntil WHERE l.name = :name AND l.lockedBy = :owner")
+    void release(String name, String owner, LocalDateTime lockedUntil);
+}
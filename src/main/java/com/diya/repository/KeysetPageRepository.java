@@ -0,0 +1,104 @@
+package com.diya.repository;
+
+import com.diya.exception.BadRequestException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class KeysetPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Seeks past (afterValue, afterId) on the (sortProperty, id) key; pass a null afterId for the first page
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> List<T> findAfter(Class<T> entityType, Specification<T> filter, String sortProperty,
+                                 Sort.Direction direction, String afterValue, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(entityType);
+        Root<T> root = query.from(entityType);
+
+        Path<Comparable> sortPath = root.get(sortProperty);
+        Path<Long> idPath = root.get("id");
+        boolean ascending = direction.isAscending();
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            predicates.add(filter.toPredicate(root, query, cb));
+        }
+        if (afterId != null) {
+            Comparable value = parseValue(afterValue, sortPath.getJavaType());
+            Predicate pastValue = ascending ? cb.greaterThan(sortPath, value) : cb.lessThan(sortPath, value);
+            Predicate pastId = ascending ? cb.greaterThan(idPath, afterId) : cb.lessThan(idPath, afterId);
+            predicates.add(cb.or(pastValue, cb.and(cb.equal(sortPath, value), pastId)));
+        }
+
+        query.select(root)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(ascending
+                        ? List.of(cb.asc(sortPath), cb.asc(idPath))
+                        : List.of(cb.desc(sortPath), cb.desc(idPath)));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public <T> long count(Class<T> entityType, Specification<T> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(entityType);
+        query.select(cb.count(root));
+        if (filter != null) {
+            query.where(filter.toPredicate(root, query, cb));
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // Planner statistics: free to read, refreshed by autovacuum/ANALYZE
+    public long estimateRowCount(String table) {
+        Long estimate = jdbcTemplate.queryForObject(
+                "SELECT GREATEST(reltuples, 0)::bigint FROM pg_class WHERE relname = ?", Long.class, table);
+        return estimate != null ? estimate : 0L;
+    }
+
+    private Comparable<?> parseValue(String raw, Class<?> type) {
+        // The raw value comes from a client-supplied cursor
+        try {
+            if (type == Long.class || type == long.class) {
+                return Long.valueOf(raw);
+            }
+            if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(raw);
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(raw);
+            }
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(raw);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return raw;
+    }
+}
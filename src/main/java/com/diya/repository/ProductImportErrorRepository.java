@@ -0,0 +1,13 @@
+package com.diya.repository;
+
+import com.diya.model.ProductImportError;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductImportErrorRepository extends JpaRepository<ProductImportError, Long> {
+
+    Page<ProductImportError> findByJobIdOrderByRowNumber(Long jobId, Pageable pageable);
+}
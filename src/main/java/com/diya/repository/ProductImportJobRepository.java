@@ -0,0 +1,47 @@
+package com.diya.repository;
+
+import com.diya.model.ProductImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ProductImportJobRepository extends JpaRepository<ProductImportJob, Long> {
+
+    @Query("SELECT j.id FROM ProductImportJob j WHERE j.status = com.diya.model.ProductImportJob.Status.PENDING " +
+           "OR (j.status = com.diya.model.ProductImportJob.Status.RUNNING AND j.lockedUntil <= :now) ORDER BY j.id")
+    List<Long> findClaimableIds(LocalDateTime now);
+
+    // Returns 1 when the caller now owns the job: it was pending, or running under a lapsed lease
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImportJob j SET j.status = com.diya.model.ProductImportJob.Status.RUNNING, " +
+           "j.claimToken = :claimToken, j.lockedUntil = :lockedUntil WHERE j.id = :id " +
+           "AND (j.status = com.diya.model.ProductImportJob.Status.PENDING " +
+           "OR (j.status = com.diya.model.ProductImportJob.Status.RUNNING AND j.lockedUntil <= :now))")
+    int claim(Long id, String claimToken, LocalDateTime lockedUntil, LocalDateTime now);
+
+    // Advances the checkpoint and renews the lease; 0 means the claim was lost to another node
+    @Modifying
+    @Query("UPDATE ProductImportJob j SET j.rowsProcessed = :rowsProcessed, j.rowsImported = j.rowsImported + :imported, " +
+           "j.rowsFailed = j.rowsFailed + :failed, j.lockedUntil = :lockedUntil " +
+           "WHERE j.id = :id AND j.claimToken = :claimToken")
+    int checkpoint(Long id, String claimToken, long rowsProcessed, long imported, long failed, LocalDateTime lockedUntil);
+
+    // Hands a running job back to the poll once lockedUntil passes, keeping its checkpoint
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImportJob j SET j.lockedUntil = :lockedUntil WHERE j.id = :id AND j.claimToken = :claimToken")
+    int release(Long id, String claimToken, LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductImportJob j SET j.status = :status, j.errorMessage = :errorMessage, j.finishedAt = :finishedAt, " +
+           "j.lockedUntil = NULL WHERE j.id = :id AND j.claimToken = :claimToken")
+    int finish(Long id, String claimToken, ProductImportJob.Status status, String errorMessage, LocalDateTime finishedAt);
+}
@@ -0,0 +1,121 @@
+package com.diya.repository;
+
+import com.diya.model.ProductImportError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductImportRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO products (name, slug, description, price, discount_price, stock, sku, category_id, " +
+            "active, featured, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, LOCALTIMESTAMP, LOCALTIMESTAMP) " +
+            "ON CONFLICT (slug) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, " +
+            "price = EXCLUDED.price, discount_price = EXCLUDED.discount_price, %s" +
+            "sku = EXCLUDED.sku, category_id = EXCLUDED.category_id, active = EXCLUDED.active, " +
+            "featured = EXCLUDED.featured, updated_at = EXCLUDED.updated_at";
+
+    private static final String INSERT_ERROR_SQL =
+            "INSERT INTO product_import_errors (job_id, row_number, sku, message) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Inserts new products and overwrites existing ones with the same slug. With keepStock the
+    // stock of an existing product is left alone, for when the in-memory ledger owns stock levels.
+    public void upsert(List<Row> rows, boolean keepStock) {
+        String sql = UPSERT_SQL.formatted(keepStock ? "" : "stock = EXCLUDED.stock, ");
+        jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                ps.setString(1, row.name());
+                ps.setString(2, row.slug());
+                ps.setString(3, row.description());
+                ps.setBigDecimal(4, row.price());
+                ps.setBigDecimal(5, row.discountPrice());
+                ps.setInt(6, row.stock());
+                ps.setString(7, row.sku());
+                if (row.categoryId() != null) {
+                    ps.setLong(8, row.categoryId());
+                } else {
+                    ps.setNull(8, Types.BIGINT);
+                }
+                ps.setBoolean(9, row.active());
+                ps.setBoolean(10, row.featured());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    // Slug of the oldest product with each SKU, so rows without a slug update the product they name
+    public Map<String, String> findSlugsBySku(Collection<String> skus) {
+        Map<String, String> slugs = new HashMap<>();
+        if (skus.isEmpty()) {
+            return slugs;
+        }
+        jdbcTemplate.query("SELECT sku, slug FROM products WHERE sku IN (" + placeholders(skus.size()) + ") ORDER BY id",
+                rs -> {
+                    slugs.putIfAbsent(rs.getString(1), rs.getString(2));
+                }, skus.toArray());
+        return slugs;
+    }
+
+    public Map<String, Long> findIdsBySlug(Collection<String> slugs) {
+        Map<String, Long> ids = new HashMap<>();
+        if (slugs.isEmpty()) {
+            return ids;
+        }
+        jdbcTemplate.query("SELECT slug, id FROM products WHERE slug IN (" + placeholders(slugs.size()) + ")",
+                rs -> {
+                    ids.put(rs.getString(1), rs.getLong(2));
+                }, slugs.toArray());
+        return ids;
+    }
+
+    public void insertErrors(List<ProductImportError> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ERROR_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProductImportError error = errors.get(i);
+                ps.setLong(1, error.getJobId());
+                ps.setLong(2, error.getRowNumber());
+                ps.setString(3, error.getSku());
+                ps.setString(4, error.getMessage());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return errors.size();
+            }
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    public record Row(String name, String slug, String description, BigDecimal price, BigDecimal discountPrice,
+                      int stock, String sku, Long categoryId, boolean active, boolean featured) {
+    }
+}
@@ -3,31 +3,77 @@ package com.diya.repository;
 
 import com.diya.model.Category;
 import com.diya.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Weighted full-text document for a product; must match the expression of the idx_products_search GIN index
+    String SEARCH_VECTOR = "(setweight(to_tsvector('english', coalesce(name, '')), 'A') || " +
+            "setweight(to_tsvector('english', coalesce(description, '')), 'B'))";
+
     Optional<Product> findBySlug(String slug);
+
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockById(Long id);
     
+    // Listing queries join the category and its parent; images and attributes are batch fetched per page
+    @Override
+    @EntityGraph(attributePaths = {"category", "category.parent"})
+    Page<Product> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "category.parent"})
     Page<Product> findByCategory(Category category, Pageable pageable);
+
+    // Products anywhere in the subtree whose materialized path starts with pathPrefix
+    @EntityGraph(attributePaths = {"category", "category.parent"})
+    @Query(value = "SELECT p FROM Product p WHERE p.category.path LIKE CONCAT(:pathPrefix, '%')",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.path LIKE CONCAT(:pathPrefix, '%')")
+    Page<Product> findByCategoryPathPrefix(String pathPrefix, Pageable pageable);
     
+    @EntityGraph(attributePaths = {"category", "category.parent"})
     @Query("SELECT p FROM Product p WHERE p.active = true AND p.featured = true")
     List<Product> findAllFeaturedProducts(Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.name LIKE %:keyword% OR p.description LIKE %:keyword%")
+    @Query(value = "SELECT * FROM products WHERE " + SEARCH_VECTOR + " @@ websearch_to_tsquery('english', :keyword) " +
+                   "ORDER BY ts_rank_cd(" + SEARCH_VECTOR + ", websearch_to_tsquery('english', :keyword)) DESC, id",
+           countQuery = "SELECT COUNT(*) FROM products WHERE " + SEARCH_VECTOR + " @@ websearch_to_tsquery('english', :keyword)",
+           nativeQuery = true)
     Page<Product> search(String keyword, Pageable pageable);
     
     @Query("SELECT p FROM Product p WHERE p.stock < 10")
     List<Product> findLowStockProducts();
-    
-    @Query(value = "SELECT p.* FROM products p INNER JOIN order_items oi ON p.id = oi.product_id " +
-           "GROUP BY p.id ORDER BY SUM(oi.quantity) DESC LIMIT :limit", nativeQuery = true)
-    List<Product> findBestSellingProducts(int limit);
+
+    // Scalar rows for the in-memory facet index: id, category id, price, discount price, stock, active
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, c.id, p.price, p.discountPrice, p.stock, p.active FROM Product p LEFT JOIN p.category c ORDER BY p.id")
+    Stream<Object[]> streamFacetRows();
+
+    @Query("SELECT p.id, c.id, p.price, p.discountPrice, p.stock, p.active FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<Object[]> findFacetRows(Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, a.key, a.value FROM Product p JOIN p.attributes a")
+    Stream<Object[]> streamAttributeRows();
+
+    @Query("SELECT p.id, a.key, a.value FROM Product p JOIN p.attributes a WHERE p.id IN :ids")
+    List<Object[]> findAttributeRows(Collection<Long> ids);
+
+    // Rows for the typeahead index: id, name, sku, slug of active products
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.name, p.sku, p.slug FROM Product p WHERE p.active = true")
+    Stream<Object[]> streamTypeaheadRows();
 }
@@ -0,0 +1,41 @@
+package com.diya.repository;
+
+import com.diya.model.ProductSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductSalesRepository extends JpaRepository<ProductSales, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO product_sales (product_id, sale_date, quantity) VALUES (:productId, :saleDate, :quantity) " +
+                   "ON CONFLICT (product_id, sale_date) DO UPDATE SET quantity = product_sales.quantity + EXCLUDED.quantity",
+           nativeQuery = true)
+    void addSales(Long productId, LocalDate saleDate, long quantity);
+
+    @Modifying
+    @Query(value = "DELETE FROM product_sales", nativeQuery = true)
+    void deleteAllSales();
+
+    @Modifying
+    @Query(value = "INSERT INTO product_sales (product_id, sale_date, quantity) " +
+                   "SELECT oi.product_id, CAST(o.created_at AS date), SUM(oi.quantity) FROM order_items oi " +
+                   "JOIN orders o ON o.id = oi.order_id WHERE o.status <> 'CANCELLED' " +
+                   "GROUP BY oi.product_id, CAST(o.created_at AS date)",
+           nativeQuery = true)
+    int rebuildFromOrderItems();
+
+    // Rows of [product id, category id, units sold]
+    @Query(value = "SELECT s.product_id, p.category_id, SUM(s.quantity) FROM product_sales s " +
+                   "JOIN products p ON p.id = s.product_id GROUP BY s.product_id, p.category_id",
+           nativeQuery = true)
+    List<Object[]> sumByProduct();
+
+    @Query("SELECT s FROM ProductSales s WHERE s.saleDate >= :since")
+    List<ProductSales> findBySaleDateFrom(LocalDate since);
+}
@@ -0,0 +1,97 @@
+package com.diya.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductStockRepository {
+
+    // Stock held by other carts' live reservations is not available to this checkout
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products p SET stock = p.stock - ? WHERE p.id = ? AND p.stock - " +
+            "(SELECT COALESCE(SUM(r.quantity), 0) FROM stock_reservations r " +
+            "WHERE r.product_id = p.id AND r.cart_id <> ? AND r.expires_at > ?) >= ?";
+
+    private static final String ADJUST_STOCK_SQL =
+            "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    private static final String RESERVATION_LOCK_SQL =
+            "SELECT pg_advisory_xact_lock(?)";
+
+    private static final String CURRENT_STOCK_SQL =
+            "SELECT stock FROM products WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Serializes reservations of one product until the surrounding transaction ends. The lock is an
+    // advisory key rather than the product row, so checkout's conditional update never waits on it.
+    public void lockForReservation(Long productId) {
+        jdbcTemplate.query(RESERVATION_LOCK_SQL, (ResultSetExtractor<Void>) rs -> null, productId);
+    }
+
+    public int currentStock(Long productId) {
+        return jdbcTemplate.queryForObject(CURRENT_STOCK_SQL, Integer.class, productId);
+    }
+
+    // Rows are updated in product id order so concurrent checkouts lock them in the same order.
+    // Returns the ids of the products whose stock was lower than the requested quantity.
+    public List<Long> decrementStock(Long cartId, SortedMap<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setLong(2, line.getKey());
+                ps.setLong(3, cartId);
+                ps.setTimestamp(4, now);
+                ps.setInt(5, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+
+        List<Long> shortfalls = new ArrayList<>();
+        for (int i = 0; i < updateCounts.length; i++) {
+            if (updateCounts[i] == 0) {
+                shortfalls.add(lines.get(i).getKey());
+            }
+        }
+        return shortfalls;
+    }
+
+    // Applies signed deltas unconditionally, e.g. restocking a cancelled order
+    public void adjustStock(SortedMap<Long, Integer> deltas) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(ADJUST_STOCK_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = lines.get(i);
+                ps.setInt(1, line.getValue());
+                ps.setLong(2, line.getKey());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+    }
+}
@@ -4,6 +4,7 @@ import com.diya.model.Promotion;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -25,4 +26,8 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
 
     @Query("SELECT p FROM Promotion p WHERE p.endDate < :now")
     List<Promotion> findExpiredPromotions(LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Promotion p SET p.active = false WHERE p.active = true AND p.endDate < :now")
+    int deactivateExpiredPromotions(LocalDateTime now);
 }
@@ -0,0 +1,33 @@
+package com.diya.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+public class RateLimitBucketRepository {
+
+    // Refills and takes one token in a single statement; the update is skipped when fewer than one
+    // token is available, so the row count says whether the request is allowed
+    private static final String CONSUME_SQL =
+            "INSERT INTO rate_limit_buckets (bucket_key, tokens, updated_at) VALUES (?, ?, LOCALTIMESTAMP) " +
+            "ON CONFLICT (bucket_key) DO UPDATE SET " +
+            "tokens = LEAST(?, rate_limit_buckets.tokens + EXTRACT(EPOCH FROM (LOCALTIMESTAMP - rate_limit_buckets.updated_at)) * ?) - 1, " +
+            "updated_at = LOCALTIMESTAMP " +
+            "WHERE LEAST(?, rate_limit_buckets.tokens + EXTRACT(EPOCH FROM (LOCALTIMESTAMP - rate_limit_buckets.updated_at)) * ?) >= 1";
+
+    private static final String DELETE_IDLE_SQL =
+            "DELETE FROM rate_limit_buckets WHERE updated_at < LOCALTIMESTAMP - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean tryConsume(String bucketKey, int capacity, double refillPerSecond) {
+        return jdbcTemplate.update(CONSUME_SQL, bucketKey, capacity - 1d, (double) capacity, refillPerSecond,
+                (double) capacity, refillPerSecond) == 1;
+    }
+
+    public int deleteIdle(long idleSeconds) {
+        return jdbcTemplate.update(DELETE_IDLE_SQL, (double) idleSeconds);
+    }
+}
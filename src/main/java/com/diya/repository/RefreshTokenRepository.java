@@ -8,19 +8,25 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
     List<RefreshToken> findAllByUser(User user);
     
+    @Query("SELECT r.tokenHash FROM RefreshToken r WHERE r.user = :user AND r.revoked = false")
+    List<byte[]> findActiveTokenHashesByUser(User user);
+
+    @Query("SELECT r.tokenHash FROM RefreshToken r WHERE r.revoked = false AND r.expiryDate > :now")
+    List<byte[]> findLiveTokenHashes(LocalDateTime now);
+
+    @Query("SELECT r.tokenHash FROM RefreshToken r WHERE r.revoked = true AND r.expiryDate > :now")
+    List<byte[]> findRevokedUnexpiredTokenHashes(LocalDateTime now);
+
     @Modifying
     @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.user = :user")
     void revokeAllUserTokens(User user);
-    
-    @Modifying
-    @Query("DELETE FROM RefreshToken r WHERE r.revoked = true")
-    void deleteAllRevokedTokens();
 }
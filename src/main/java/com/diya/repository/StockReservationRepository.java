@@ -0,0 +1,47 @@
+package com.diya.repository;
+
+import com.diya.model.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    @Query("SELECT COALESCE(SUM(r.quantity), 0) FROM StockReservation r " +
+           "WHERE r.productId = :productId AND r.cartId <> :cartId AND r.expiresAt > :now")
+    long sumLiveReservationsExcludingCart(Long productId, Long cartId, LocalDateTime now);
+
+    @Query("SELECT r.productId, SUM(r.quantity) FROM StockReservation r " +
+           "WHERE r.productId IN :productIds AND r.cartId <> :cartId AND r.expiresAt > :now GROUP BY r.productId")
+    List<Object[]> sumLiveReservationsByProductExcludingCart(Collection<Long> productIds, Long cartId, LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO stock_reservations (cart_id, product_id, quantity, expires_at, created_at) " +
+                   "VALUES (:cartId, :productId, :quantity, :expiresAt, :now) " +
+                   "ON CONFLICT (cart_id, product_id) DO UPDATE " +
+                   "SET quantity = EXCLUDED.quantity, expires_at = EXCLUDED.expires_at, updated_at = :now",
+           nativeQuery = true)
+    void upsertReservation(Long cartId, Long productId, int quantity, LocalDateTime expiresAt, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.cartId = :cartId AND r.productId = :productId")
+    void deleteByCartIdAndProductId(Long cartId, Long productId);
+
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.cartId = :cartId")
+    void deleteAllByCartId(Long cartId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM stock_reservations WHERE id IN " +
+                   "(SELECT id FROM stock_reservations WHERE expires_at <= :now ORDER BY id LIMIT :batchSize)",
+           nativeQuery = true)
+    int deleteExpiredBatch(LocalDateTime now, int batchSize);
+}
@@ -0,0 +1,49 @@
+package com.diya.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class TokenPurgeRepository {
+
+    public enum Target {
+        REFRESH_TOKENS("refresh_tokens", "revoked = true OR expiry_date < ?"),
+        PASSWORD_RESET_TOKENS("password_reset_tokens", "used = true OR expiry_date < ?"),
+        // Bodies hold password reset links, so delivered and abandoned emails are only kept for a while
+        EMAIL_OUTBOX("email_outbox", "status IN ('SENT', 'FAILED') AND created_at < ?");
+
+        private final String table;
+        private final String purgeable;
+
+        Target(String table, String purgeable) {
+            this.table = table;
+            this.purgeable = purgeable;
+        }
+
+        public String getTable() {
+            return table;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Next chunk of purgeable ids after the given id, walking the primary key index
+    public List<Long> findPurgeableIds(Target target, LocalDateTime now, long afterId, int chunkSize) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM " + target.table + " WHERE id > ? AND (" + target.purgeable + ") ORDER BY id LIMIT ?",
+                Long.class, afterId, Timestamp.valueOf(now), chunkSize);
+    }
+
+    // Deletes a chunk; rows that stopped being purgeable since they were selected are left alone
+    public int deleteIds(Target target, LocalDateTime now, long fromId, long toId) {
+        return jdbcTemplate.update(
+                "DELETE FROM " + target.table + " WHERE id BETWEEN ? AND ? AND (" + target.purgeable + ")",
+                fromId, toId, Timestamp.valueOf(now));
+    }
+}
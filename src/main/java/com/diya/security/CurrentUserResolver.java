@@ -0,0 +1,60 @@
+package com.diya.security;
+
+import com.diya.exception.ResourceNotFoundException;
+import com.diya.model.User;
+import com.diya.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+// Loads the authenticated user at most once per request and hands the same instance to every
+// service that asks. The id comes from the token claims, so the load is a primary key lookup.
+@Component
+@RequiredArgsConstructor
+public class CurrentUserResolver {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserResolver.class.getName() + ".USER";
+
+    private final UserRepository userRepository;
+
+    public User resolve(String username) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User cached
+                && cached.getEmail().equals(username)) {
+            return cached;
+        }
+
+        User user = load(username);
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    private User load(String username) {
+        Long userId = authenticatedUserId(username);
+        Optional<User> user = userId != null ? userRepository.findById(userId) : userRepository.findByEmail(username);
+        return user.orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + username));
+    }
+
+    private Long authenticatedUserId(String username) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtPrincipal jwtPrincipal && jwtPrincipal.getUsername().equals(username)) {
+            return jwtPrincipal.getId();
+        }
+        if (principal instanceof User user && user.getEmail().equals(username)) {
+            return user.getId();
+        }
+        return null;
+    }
+}
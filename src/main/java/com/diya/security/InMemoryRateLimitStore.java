@@ -0,0 +1,86 @@
+package com.diya.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Buckets are updated with compare-and-set, so no lock is taken on the request path. A bucket that
+// has refilled completely is the same as no bucket and is dropped by the sweep, which keeps the map
+// small; keys that arrive while the map is at its limit share one overflow bucket until the next sweep.
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private static final String OVERFLOW_SUFFIX = ":overflow";
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Value("${app.rate-limit.max-buckets:100000}")
+    private int maxBuckets;
+
+    @Override
+    public boolean tryConsume(String bucketKey, int capacity, double refillPerSecond) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            // A full map is only swept by the scheduler; doing it here would make every request of a
+            // key-spraying client scan the whole map
+            String key = buckets.size() < maxBuckets ? bucketKey : overflowKey(bucketKey);
+            bucket = buckets.computeIfAbsent(key, ignored -> new TokenBucket(capacity, now));
+        }
+        return bucket.tryConsume(capacity, refillPerSecond / 1_000_000_000d, now);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private String overflowKey(String bucketKey) {
+        int separator = bucketKey.indexOf(':');
+        return (separator > 0 ? bucketKey.substring(0, separator) : bucketKey) + OVERFLOW_SUFFIX;
+    }
+
+    private static final class TokenBucket {
+        private final AtomicReference<State> state;
+        private volatile int capacity;
+        private volatile double refillPerNano;
+
+        TokenBucket(int capacity, long now) {
+            this.capacity = capacity;
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        boolean tryConsume(int capacity, double refillPerNano, long now) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerNano;
+            while (true) {
+                State current = state.get();
+                double tokens = available(current, now);
+                if (tokens < 1) {
+                    // Rejections leave the bucket untouched, so they cost no write
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return available(state.get(), now) >= capacity;
+        }
+
+        private double available(State current, long now) {
+            return Math.min(capacity, current.tokens + (now - current.updatedAt) * refillPerNano);
+        }
+    }
+
+    private record State(double tokens, long updatedAt) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.diya.security;
+
+import com.diya.repository.RateLimitBucketRepository;
+import com.diya.service.ScheduledJobRunner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+// Keeps buckets in rate_limit_buckets so every node enforces the same limit. Costs one
+// statement per limited request.
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "jdbc")
+@RequiredArgsConstructor
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private static final long IDLE_SECONDS = Duration.ofDays(1).toSeconds();
+
+    private final RateLimitBucketRepository rateLimitBucketRepository;
+    private final ScheduledJobRunner scheduledJobRunner;
+
+    // Runs outside the caller's transaction so a failed login that rolls back still spends its token
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryConsume(String bucketKey, int capacity, double refillPerSecond) {
+        return rateLimitBucketRepository.tryConsume(bucketKey, capacity, refillPerSecond);
+    }
+
+    @Scheduled(cron = "${app.rate-limit.cleanup-cron:0 45 * * * *}")
+    public void deleteIdleBuckets() {
+        scheduledJobRunner.run("rate-limit-bucket-cleanup", Duration.ofMinutes(30), Duration.ofMinutes(1),
+                () -> rateLimitBucketRepository.deleteIdle(IDLE_SECONDS));
+    }
+}
@@ -0,0 +1,23 @@
+package com.diya.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+// Authenticated user rebuilt from the signed claims of an access token, without a users lookup
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+}
@@ -1,21 +1,21 @@
-
 package com.diya.security;
 
+import com.diya.model.User;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.security.Key;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -23,53 +23,21 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class JwtTokenProvider {
 
-    private final JwtUserDetailsService userDetailsService;
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_ID_CLAIM = "uid";
 
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+    private final JwtUserDetailsService userDetailsService;
+    private final JwtTokenVerifier jwtTokenVerifier;
 
     @Value("${security.jwt.expiration-time}")
     private long accessTokenValidity;
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
     public String createAccessToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + accessTokenValidity);
-
-        String authorities = authentication.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
-
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .claim("roles", authorities)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return buildAccessToken((UserDetails) authentication.getPrincipal());
     }
 
     public String createAccessTokenFromUsername(String username) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + accessTokenValidity);
-
-        String authorities = userDetails.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .collect(Collectors.joining(","));
-
-        return Jwts.builder()
-                .setSubject(username)
-                .claim("roles", authorities)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return buildAccessToken(userDetailsService.loadUserByUsername(username));
     }
 
     public String resolveToken(HttpServletRequest request) {
@@ -81,17 +49,7 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jws<Claims> claims = Jwts
-                    .parser()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-
-            return !claims.getBody().getExpiration().before(new Date());
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return jwtTokenVerifier.verify(token) != null;
     }
 
     public String getUsername(String token) {
@@ -99,21 +57,55 @@ public class JwtTokenProvider {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = jwtTokenVerifier.verify(token);
+        if (claims == null) {
+            throw new JwtException("Invalid or expired token");
+        }
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Verifies the token once and builds the principal from its signed claims.
+    // Returns null when the token is malformed, tampered with or expired.
+    public Authentication getAuthentication(String token) {
+        Claims claims = jwtTokenVerifier.verify(token);
+        if (claims == null) {
+            return null;
+        }
+
+        UserDetails principal = principalFromClaims(claims);
+        return new UsernamePasswordAuthenticationToken(principal, "", principal.getAuthorities());
+    }
+
+    private UserDetails principalFromClaims(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        String roles = claims.get(ROLES_CLAIM, String.class);
+        if (userId == null || !StringUtils.hasText(roles)) {
+            // Tokens issued before the uid claim existed still need the user record
+            return userDetailsService.loadCachedUser(claims.getSubject());
+        }
+
+        List<GrantedAuthority> authorities = Arrays.stream(roles.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+        return new JwtPrincipal(userId, claims.getSubject(), authorities);
     }
 
-    public Authentication getAuthentication(String token) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(getUsername(token));
-        return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+    private String buildAccessToken(UserDetails userDetails) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + accessTokenValidity);
+
+        String authorities = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+
+        JwtBuilder builder = Jwts.builder()
+                .setSubject(userDetails.getUsername())
+                .claim(ROLES_CLAIM, authorities)
+                .setIssuedAt(now)
+                .setExpiration(expiryDate);
+        if (userDetails instanceof User user) {
+            builder.claim(USER_ID_CLAIM, user.getId());
+        }
+        return builder.signWith(jwtTokenVerifier.getSigningKey(), SignatureAlgorithm.HS256).compact();
     }
 }
@@ -0,0 +1,121 @@
+package com.diya.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Verifies access tokens with one prebuilt parser and remembers tokens that already passed, keyed by
+// the SHA-256 of the token, until their exp. A resent bearer token then skips signature and JSON work.
+@Component
+@RequiredArgsConstructor
+public class JwtTokenVerifier {
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${security.jwt.secret-key}")
+    private String secretKey;
+
+    @Value("${app.security.token-cache.max-size:50000}")
+    private int cacheMaxSize;
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        jwtParser = Jwts.parser()
+                .setSigningKey(signingKey)
+                .build();
+
+        FunctionCounter.builder("jwt.verification.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.verification.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("jwt.verification.cache.size", verifiedTokens, ConcurrentHashMap::size)
+                .register(meterRegistry);
+    }
+
+    public Key getSigningKey() {
+        return signingKey;
+    }
+
+    // Returns the token's claims, or null when it is malformed, tampered with or expired
+    public Claims verify(String token) {
+        String tokenHash = hash(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = verifiedTokens.get(tokenHash);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hits.incrementAndGet();
+                return cached.claims;
+            }
+            verifiedTokens.remove(tokenHash, cached);
+            return null;
+        }
+
+        misses.incrementAndGet();
+        Claims claims;
+        try {
+            // The parser rejects expired tokens itself
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        if (claims.getExpiration() != null && hasRoom()) {
+            verifiedTokens.put(tokenHash, new VerifiedToken(claims, claims.getExpiration().getTime()));
+        }
+        return claims;
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.token-cache.sweep-interval-ms:60000}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        verifiedTokens.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+
+    // A full cache stops admitting tokens rather than evicting ones that are still in use. Expired
+    // entries are only cleared by the scheduled sweep, so a miss never scans the cache.
+    private boolean hasRoom() {
+        return verifiedTokens.size() < cacheMaxSize;
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record VerifiedToken(Claims claims, long expiresAt) {
+    }
+}
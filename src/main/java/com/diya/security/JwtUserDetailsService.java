@@ -1,23 +1,68 @@
-
 package com.diya.security;
 
 
+import com.diya.model.User;
 import com.diya.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
-public class JwtUserDetailsService implements UserDetailsService {
+public class JwtUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    private final ConcurrentHashMap<String, CachedUser> cachedUsers = new ConcurrentHashMap<>();
+
+    @Value("${app.security.user-cache.ttl-ms:30000}")
+    private long cacheTtlMs;
+
+    @Value("${app.security.user-cache.max-size:10000}")
+    private int cacheMaxSize;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return userRepository.findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
     }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        return userRepository.save(user);
+    }
+
+    // Short-lived copy for authenticating tokens that do not carry the full set of claims.
+    // Password checks at login always go through loadUserByUsername.
+    public UserDetails loadCachedUser(String username) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = cachedUsers.get(username);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.user;
+        }
+
+        User user = (User) loadUserByUsername(username);
+        if (cachedUsers.size() >= cacheMaxSize) {
+            cachedUsers.values().removeIf(entry -> entry.expiresAt <= now);
+            if (cachedUsers.size() >= cacheMaxSize) {
+                cachedUsers.clear();
+            }
+        }
+        cachedUsers.put(username, new CachedUser(user, now + cacheTtlMs));
+        return user;
+    }
+
+    private record CachedUser(User user, long expiresAt) {
+    }
 }
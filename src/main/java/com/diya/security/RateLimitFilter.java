@@ -0,0 +1,57 @@
+package com.diya.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Per-IP limits for the unauthenticated auth endpoints. Rejections are written here, before the
+// body is parsed or anything else runs; per-account limits are applied in the services. The client
+// address is the one Tomcat derives from X-Forwarded-For when server.forward-headers-strategy is
+// native, which application.yaml sets so that clients behind a load balancer do not share a bucket.
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"message\":\"Too many requests, please try again later\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final Map<String, RateLimitPolicy> POLICIES = Map.of(
+            "/api/v1/auth/login", RateLimitPolicy.LOGIN_IP,
+            "/api/v1/auth/register", RateLimitPolicy.REGISTER_IP,
+            "/api/v1/auth/password/forgot", RateLimitPolicy.PASSWORD_RESET_IP,
+            "/api/v1/auth/password/reset", RateLimitPolicy.PASSWORD_RESET_IP);
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || !POLICIES.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitPolicy policy = POLICIES.get(request.getRequestURI());
+        if (!rateLimiter.tryAcquire(policy, request.getRemoteAddr())) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(rateLimiter.getRetryAfterSeconds(policy)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(TOO_MANY_REQUESTS_BODY.length);
+            response.getOutputStream().write(TOO_MANY_REQUESTS_BODY);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,33 @@
+package com.diya.security;
+
+// Token bucket limits for abuse-prone endpoints. Defaults can be overridden with
+// app.rate-limit.<key>.capacity and app.rate-limit.<key>.refill-per-minute.
+public enum RateLimitPolicy {
+    LOGIN_IP("login-ip", 20, 10),
+    LOGIN_ACCOUNT("login-account", 10, 2),
+    REGISTER_IP("register-ip", 5, 1),
+    PASSWORD_RESET_IP("password-reset-ip", 5, 1),
+    PASSWORD_RESET_ACCOUNT("password-reset-account", 3, 0.1);
+
+    private final String key;
+    private final int defaultCapacity;
+    private final double defaultRefillPerMinute;
+
+    RateLimitPolicy(String key, int defaultCapacity, double defaultRefillPerMinute) {
+        this.key = key;
+        this.defaultCapacity = defaultCapacity;
+        this.defaultRefillPerMinute = defaultRefillPerMinute;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultCapacity() {
+        return defaultCapacity;
+    }
+
+    public double getDefaultRefillPerMinute() {
+        return defaultRefillPerMinute;
+    }
+}
@@ -0,0 +1,7 @@
+package com.diya.security;
+
+// Where token buckets live: in this process, or in the database so limits hold across nodes
+public interface RateLimitStore {
+
+    boolean tryConsume(String bucketKey, int capacity, double refillPerSecond);
+}
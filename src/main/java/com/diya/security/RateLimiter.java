@@ -0,0 +1,65 @@
+package com.diya.security;
+
+import com.diya.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+@Component
+public class RateLimiter {
+
+    private final RateLimitStore rateLimitStore;
+    private final boolean enabled;
+    private final Map<RateLimitPolicy, Limit> limits = new EnumMap<>(RateLimitPolicy.class);
+
+    public RateLimiter(RateLimitStore rateLimitStore, Environment environment, MeterRegistry meterRegistry,
+                       @Value("${app.rate-limit.enabled:true}") boolean enabled) {
+        this.rateLimitStore = rateLimitStore;
+        this.enabled = enabled;
+        for (RateLimitPolicy policy : RateLimitPolicy.values()) {
+            String prefix = "app.rate-limit." + policy.getKey();
+            int capacity = environment.getProperty(prefix + ".capacity", Integer.class, policy.getDefaultCapacity());
+            double refillPerMinute = environment.getProperty(prefix + ".refill-per-minute", Double.class,
+                    policy.getDefaultRefillPerMinute());
+            limits.put(policy, new Limit(
+                    capacity,
+                    refillPerMinute / 60d,
+                    // A bucket that can be empty needs at least this long to earn back one token
+                    refillPerMinute > 0 ? (long) Math.ceil(60d / refillPerMinute) : 3600,
+                    Counter.builder("rate.limit.requests").tag("policy", policy.getKey()).tag("result", "allowed")
+                            .register(meterRegistry),
+                    Counter.builder("rate.limit.requests").tag("policy", policy.getKey()).tag("result", "rejected")
+                            .register(meterRegistry)));
+        }
+    }
+
+    public boolean tryAcquire(RateLimitPolicy policy, String key) {
+        if (!enabled) {
+            return true;
+        }
+        Limit limit = limits.get(policy);
+        boolean allowed = rateLimitStore.tryConsume(policy.getKey() + ":" + key, limit.capacity, limit.refillPerSecond);
+        (allowed ? limit.allowed : limit.rejected).increment();
+        return allowed;
+    }
+
+    public void checkAccount(RateLimitPolicy policy, String email) {
+        if (email != null && !tryAcquire(policy, email.trim().toLowerCase(Locale.ROOT))) {
+            throw new RateLimitExceededException("Too many attempts, please try again later",
+                    getRetryAfterSeconds(policy));
+        }
+    }
+
+    public long getRetryAfterSeconds(RateLimitPolicy policy) {
+        return limits.get(policy).retryAfterSeconds;
+    }
+
+    private record Limit(int capacity, double refillPerSecond, long retryAfterSeconds, Counter allowed, Counter rejected) {
+    }
+}
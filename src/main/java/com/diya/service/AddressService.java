@@ -9,7 +9,7 @@ import com.diya.mapper.AddressMapper;
 import com.diya.model.Address;
 import com.diya.model.User;
 import com.diya.repository.AddressRepository;
-import com.diya.repository.UserRepository;
+import com.diya.security.CurrentUserResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,18 +22,18 @@ import java.util.stream.Collectors;
 public class AddressService {
 
     private final AddressRepository addressRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
     private final AddressMapper addressMapper;
 
     public List<AddressResponse> getUserAddresses(String username) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         return addressRepository.findByUser(user).stream()
                 .map(addressMapper::toAddressResponse)
                 .collect(Collectors.toList());
     }
 
     public AddressResponse getAddressById(String username, Long addressId) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address not found with id: " + addressId));
         
@@ -46,7 +46,7 @@ public class AddressService {
 
     @Transactional
     public AddressResponse createAddress(String username, AddressRequest addressRequest) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         
         Address address = addressMapper.toAddress(addressRequest);
         address.setUser(user);
@@ -64,7 +64,7 @@ public class AddressService {
 
     @Transactional
     public AddressResponse updateAddress(String username, Long addressId, AddressRequest addressRequest) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address not found with id: " + addressId));
         
@@ -85,7 +85,7 @@ public class AddressService {
 
     @Transactional
     public void deleteAddress(String username, Long addressId) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Address address = addressRepository.findById(addressId)
                 .orElseThrow(() -> new ResourceNotFoundException("Address not found with id: " + addressId));
         
@@ -107,9 +107,4 @@ public class AddressService {
             addressRepository.delete(address);
         }
     }
-
-    private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
-    }
 }
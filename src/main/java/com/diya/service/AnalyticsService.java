@@ -10,7 +10,6 @@ import com.diya.mapper.AnalyticsMapper;
 import com.diya.model.Analytics;
 import com.diya.repository.AnalyticsRepository;
 import com.diya.repository.OrderRepository;
-import com.diya.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -32,7 +31,7 @@ public class AnalyticsService {
 
     private final AnalyticsRepository analyticsRepository;
     private final OrderRepository orderRepository;
-    private final ProductRepository productRepository;
+    private final BestSellerService bestSellerService;
     private final AnalyticsMapper analyticsMapper;
 
     public PagedResponse<AnalyticsResponse> getAllAnalytics(Pageable pageable) {
@@ -113,7 +112,7 @@ public class AnalyticsService {
         analytics.setAverageSessionDuration(request.getAverageSessionDuration());
         
         // Get top selling products
-        List<String> topProducts = productRepository.findBestSellingProducts(5).stream()
+        List<String> topProducts = bestSellerService.getTopSellingProducts(5).stream()
                 .map(p -> p.getName() + " (ID: " + p.getId() + ")")
                 .collect(Collectors.toList());
         
@@ -13,6 +13,8 @@ import com.diya.model.RefreshToken;
 import com.diya.model.User;
 import com.diya.repository.UserRepository;
 import com.diya.security.JwtTokenProvider;
+import com.diya.security.RateLimitPolicy;
+import com.diya.security.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -31,9 +33,12 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
     private final RefreshTokenService refreshTokenService;
+    private final RateLimiter rateLimiter;
 
     @Transactional
     public JwtResponse login(LoginRequest loginRequest) {
+        rateLimiter.checkAccount(RateLimitPolicy.LOGIN_ACCOUNT, loginRequest.getEmail());
+
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
         
@@ -42,11 +47,11 @@ public class AuthService {
         
         User userDetails = (User) authentication.getPrincipal();
         
-        RefreshToken refreshToken = refreshTokenService.createRefreshToken(userDetails.getUsername());
+        String refreshToken = refreshTokenService.createRefreshToken(userDetails.getUsername());
         
         return JwtResponse.builder()
                 .accessToken(accessToken)
-                .refreshToken(refreshToken.getToken())
+                .refreshToken(refreshToken)
                 .tokenType("Bearer")
                 .id(userDetails.getId())
                 .email(userDetails.getEmail())
@@ -61,7 +66,7 @@ public class AuthService {
         String requestRefreshToken = request.getRefreshToken();
         
         return refreshTokenService.findByToken(requestRefreshToken)
-                .map(refreshTokenService::verifyExpiration)
+                .map(token -> refreshTokenService.verifyExpiration(token, requestRefreshToken))
                 .map(RefreshToken::getUser)
                 .map(user -> {
                     String accessToken = jwtTokenProvider.createAccessTokenFromUsername(user.getUsername());
@@ -0,0 +1,185 @@
+package com.diya.service;
+
+import com.diya.dto.response.BestSellerResponse;
+import com.diya.exception.BadRequestException;
+import com.diya.mapper.ProductMapper;
+import com.diya.model.JobLock;
+import com.diya.model.Order;
+import com.diya.model.OrderItem;
+import com.diya.model.Product;
+import com.diya.model.ProductSales;
+import com.diya.repository.JobLockRepository;
+import com.diya.repository.ProductRepository;
+import com.diya.repository.ProductSalesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Keeps product_sales and the in-memory leaderboard in step with orders. The table is written in
+// the order's transaction; the leaderboard only after commit, so rolled back checkouts never rank.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BestSellerService {
+
+    private static final int MAX_LIMIT = 100;
+    private static final String REBUILD_JOB = "best-seller-rebuild";
+
+    private final ProductSalesRepository productSalesRepository;
+    private final ProductRepository productRepository;
+    private final SalesLeaderboard salesLeaderboard;
+    private final ProductMapper productMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledJobRunner scheduledJobRunner;
+    private final JobLockRepository jobLockRepository;
+
+    // Start time of the last finished rebuild this node's leaderboard reflects
+    private volatile LocalDateTime loadedRebuildAt;
+
+    @Value("${app.leaderboard.daily-retention-days:90}")
+    private int dailyRetentionDays;
+
+    public void recordOrder(Order order) {
+        applySales(order, 1);
+    }
+
+    public void reverseOrder(Order order) {
+        applySales(order, -1);
+    }
+
+    public List<BestSellerResponse> getBestSellers(int limit, LocalDate date, Long categoryId) {
+        if (date != null && categoryId != null) {
+            throw new BadRequestException("Best sellers can be filtered by date or by category, not both");
+        }
+
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<SalesLeaderboard.Entry> entries;
+        if (date != null) {
+            entries = salesLeaderboard.topForDay(date, boundedLimit);
+        } else if (categoryId != null) {
+            entries = salesLeaderboard.topForCategory(categoryId, boundedLimit);
+        } else {
+            entries = salesLeaderboard.topAllTime(boundedLimit);
+        }
+
+        Map<Long, Product> products = loadProducts(entries);
+        return entries.stream()
+                .filter(entry -> products.containsKey(entry.getProductId()))
+                .map(entry -> BestSellerResponse.builder()
+                        .product(productMapper.toProductResponse(products.get(entry.getProductId())))
+                        .quantitySold(entry.getQuantity())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    public List<Product> getTopSellingProducts(int limit) {
+        List<SalesLeaderboard.Entry> entries = salesLeaderboard.topAllTime(limit);
+        Map<Long, Product> products = loadProducts(entries);
+        return entries.stream()
+                .map(entry -> products.get(entry.getProductId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLeaderboard() {
+        // Read before loading, so a rebuild that finishes during the load is picked up by the next check
+        LocalDateTime finishedRebuild = finishedRebuildAt();
+        LocalDate since = LocalDate.now().minusDays(dailyRetentionDays);
+        SalesLeaderboard.Rankings rankings = salesLeaderboard.newRankings();
+
+        for (Object[] row : productSalesRepository.sumByProduct()) {
+            Long productId = ((Number) row[0]).longValue();
+            Long categoryId = row[1] != null ? ((Number) row[1]).longValue() : null;
+            rankings.addAllTime(productId, categoryId, ((Number) row[2]).longValue());
+        }
+        for (ProductSales sales : productSalesRepository.findBySaleDateFrom(since)) {
+            rankings.addDay(sales.getProductId(), sales.getSaleDate(), sales.getQuantity());
+        }
+
+        salesLeaderboard.replace(rankings);
+        if (finishedRebuild != null) {
+            loadedRebuildAt = finishedRebuild;
+        }
+    }
+
+    // Rebuilds product_sales from the order history, correcting any drift such as products that
+    // changed category or orders that committed while the previous load ran. One node rebuilds the
+    // table and reloads straight away; the others reload once its lease is released.
+    @Scheduled(cron = "${app.leaderboard.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        boolean rebuilt = scheduledJobRunner.run(REBUILD_JOB, Duration.ofMinutes(30), Duration.ofMinutes(1),
+                () -> transactionTemplate.execute(status -> {
+                    productSalesRepository.deleteAllSales();
+                    return productSalesRepository.rebuildFromOrderItems();
+                }));
+        if (rebuilt) {
+            loadLeaderboard();
+            jobLockRepository.findById(REBUILD_JOB).ifPresent(lock -> loadedRebuildAt = lock.getLockedAt());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboard.rebuild-check-interval-ms:60000}")
+    public void reloadAfterRemoteRebuild() {
+        LocalDateTime finishedRebuild = finishedRebuildAt();
+        if (finishedRebuild != null && !finishedRebuild.equals(loadedRebuildAt)) {
+            log.info("Reloading best-seller leaderboard after the rebuild started at {}", finishedRebuild);
+            loadLeaderboard();
+        }
+    }
+
+    // The lease's locked_at only moves when a rebuild starts; once locked_until has passed that
+    // rebuild has committed (or its node died and the lease lapsed). Null while one is running.
+    private LocalDateTime finishedRebuildAt() {
+        return jobLockRepository.findById(REBUILD_JOB)
+                .filter(lock -> !lock.getLockedUntil().isAfter(LocalDateTime.now()))
+                .map(JobLock::getLockedAt)
+                .orElse(null);
+    }
+
+    private void applySales(Order order, int sign) {
+        LocalDate day = order.getCreatedAt().toLocalDate();
+        Map<Long, Long> quantities = new HashMap<>();
+        Map<Long, Long> categories = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            Product product = item.getProduct();
+            quantities.merge(product.getId(), (long) item.getQuantity() * sign, Long::sum);
+            if (product.getCategory() != null) {
+                categories.put(product.getId(), product.getCategory().getId());
+            }
+        }
+
+        quantities.forEach((productId, quantity) -> productSalesRepository.addSales(productId, day, quantity));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                quantities.forEach((productId, quantity) ->
+                        salesLeaderboard.add(productId, categories.get(productId), day, quantity));
+            }
+        });
+    }
+
+    private Map<Long, Product> loadProducts(List<SalesLeaderboard.Entry> entries) {
+        List<Long> ids = entries.stream().map(SalesLeaderboard.Entry::getProductId).collect(Collectors.toList());
+        return productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+    }
+}
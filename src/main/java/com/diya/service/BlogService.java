@@ -3,16 +3,19 @@ package com.diya.service;
 
 import com.diya.dto.request.BlogPostRequest;
 import com.diya.dto.response.BlogPostResponse;
+import com.diya.dto.response.CursorPagedResponse;
 import com.diya.dto.response.PagedResponse;
 import com.diya.exception.ResourceNotFoundException;
 import com.diya.mapper.BlogPostMapper;
 import com.diya.model.BlogPost;
 import com.diya.model.User;
 import com.diya.repository.BlogPostRepository;
-import com.diya.repository.UserRepository;
+import com.diya.security.CurrentUserResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,7 +28,8 @@ import java.util.stream.Collectors;
 public class BlogService {
 
     private final BlogPostRepository blogPostRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final KeysetPaginationService keysetPaginationService;
     private final BlogPostMapper blogPostMapper;
 
     public PagedResponse<BlogPostResponse> getAllPublishedPosts(Pageable pageable) {
@@ -33,6 +37,12 @@ public class BlogService {
         return createPagedResponse(posts);
     }
 
+    public CursorPagedResponse<BlogPostResponse> scrollPublishedPosts(String cursor, int size, Sort.Direction direction, String total) {
+        Specification<BlogPost> published = (root, query, cb) -> cb.isTrue(root.get("published"));
+        return keysetPaginationService.scroll(BlogPost.class, "blog_posts", published, "publishedAt", direction,
+                cursor, size, total, blogPostMapper::toBlogPostResponse);
+    }
+
     public PagedResponse<BlogPostResponse> getAllPosts(Pageable pageable) {
         Page<BlogPost> posts = blogPostRepository.findAll(pageable);
         return createPagedResponse(posts);
@@ -65,7 +75,7 @@ public class BlogService {
 
     @Transactional
     public BlogPostResponse createPost(String username, BlogPostRequest blogPostRequest) {
-        User author = findUserByEmail(username);
+        User author = currentUserResolver.resolve(username);
         
         BlogPost blogPost = blogPostMapper.toBlogPost(blogPostRequest);
         blogPost.setAuthor(author);
@@ -106,11 +116,6 @@ public class BlogService {
                 .orElseThrow(() -> new ResourceNotFoundException("Blog post not found with id: " + id));
     }
 
-    private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
-    }
-
     private PagedResponse<BlogPostResponse> createPagedResponse(Page<BlogPost> posts) {
         List<BlogPostResponse> postResponses = posts.getContent()
                 .stream()
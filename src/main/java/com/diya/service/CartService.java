@@ -5,7 +5,6 @@ package com.diya.service;
 
 import com.diya.dto.request.CartItemRequest;
 import com.diya.dto.response.CartResponse;
-import com.diya.exception.InsufficientStockException;
 import com.diya.exception.ResourceNotFoundException;
 import com.diya.mapper.CartMapper;
 import com.diya.model.Cart;
@@ -15,7 +14,7 @@ import com.diya.model.User;
 import com.diya.repository.CartItemRepository;
 import com.diya.repository.CartRepository;
 import com.diya.repository.ProductRepository;
-import com.diya.repository.UserRepository;
+import com.diya.security.CurrentUserResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,27 +28,23 @@ public class CartService {
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final StockReservationService stockReservationService;
     private final CartMapper cartMapper;
 
     public CartResponse getCart(String username) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Cart cart = findOrCreateCart(user);
         return cartMapper.toCartResponse(cart);
     }
 
     @Transactional
     public CartResponse addToCart(String username, CartItemRequest request) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Cart cart = findOrCreateCart(user);
 
         Product product = findProductById(request.getProductId());
 
-        // Check if product has enough stock
-        if (product.getStock() < request.getQuantity()) {
-            throw new InsufficientStockException("Not enough stock available for product: " + product.getName());
-        }
-
         // Check if the product is already in cart
         Optional<CartItem> existingItem = cart.getItems().stream()
                 .filter(item -> item.getProduct().getId().equals(request.getProductId()))
@@ -60,17 +55,15 @@ public class CartService {
             CartItem cartItem = existingItem.get();
             int newQuantity = cartItem.getQuantity() + request.getQuantity();
 
-            if (product.getStock() < request.getQuantity()) {
-                throw new InsufficientStockException("Not enough stock available for product: " + product.getName());
-            }
+            // Hold stock for the whole line
+            stockReservationService.reserve(cart, product, newQuantity);
 
             cartItem.setQuantity(newQuantity);
             cartItemRepository.save(cartItem);
-
-            // Reduce product stock
-            product.setStock(product.getStock() - request.getQuantity());
-            productRepository.save(product);
         } else {
+            // Hold stock for the new line
+            stockReservationService.reserve(cart, product, request.getQuantity());
+
             // Add new cart item
             CartItem cartItem = CartItem.builder()
                     .cart(cart)
@@ -80,10 +73,6 @@ public class CartService {
 
             cart.getItems().add(cartItem);
             cartItemRepository.save(cartItem);
-
-            // Reduce product stock
-            product.setStock(product.getStock() - request.getQuantity());
-            productRepository.save(product);
         }
 
         return cartMapper.toCartResponse(cart);
@@ -91,7 +80,7 @@ public class CartService {
 
     @Transactional
     public CartResponse updateCartItem(String username, Long cartItemId, CartItemRequest request) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Cart cart = findOrCreateCart(user);
 
         CartItem cartItem = cart.getItems().stream()
@@ -100,33 +89,19 @@ public class CartService {
                 .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with id: " + cartItemId));
 
         Product product = cartItem.getProduct();
-        int quantityDifference = request.getQuantity() - cartItem.getQuantity();
 
         if (request.getQuantity() <= 0) {
-            // Return items to stock when removing from cart
-            product.setStock(product.getStock() + cartItem.getQuantity());
-            productRepository.save(product);
+            // Release the held stock when removing from cart
+            stockReservationService.release(cart, product.getId());
 
             cart.getItems().remove(cartItem);
             cartItemRepository.delete(cartItem);
         } else {
-            // Check if increasing quantity
-            if (quantityDifference > 0) {
-                // Ensure enough stock for the increase
-                if (product.getStock() < quantityDifference) {
-                    throw new InsufficientStockException("Not enough stock available for product: " + product.getName());
-                }
-
-                // Decrease stock by the difference
-                product.setStock(product.getStock() - quantityDifference);
-            } else if (quantityDifference < 0) {
-                // Return items to stock
-                product.setStock(product.getStock() - quantityDifference); // negative difference, so we subtract
-            }
+            // Re-hold stock for the new line quantity
+            stockReservationService.reserve(cart, product, request.getQuantity());
 
             cartItem.setQuantity(request.getQuantity());
             cartItemRepository.save(cartItem);
-            productRepository.save(product);
         }
 
         return cartMapper.toCartResponse(cart);
@@ -134,7 +109,7 @@ public class CartService {
 
     @Transactional
     public CartResponse removeFromCart(String username, Long cartItemId) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Cart cart = findOrCreateCart(user);
 
         CartItem cartItem = cart.getItems().stream()
@@ -142,10 +117,8 @@ public class CartService {
                 .findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with id: " + cartItemId));
 
-        // Return items to stock
-        Product product = cartItem.getProduct();
-        product.setStock(product.getStock() + cartItem.getQuantity());
-        productRepository.save(product);
+        // Release the held stock
+        stockReservationService.release(cart, cartItem.getProduct().getId());
 
         cart.getItems().remove(cartItem);
         cartItemRepository.delete(cartItem);
@@ -155,15 +128,11 @@ public class CartService {
 
     @Transactional
     public CartResponse clearCart(String username) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Cart cart = findOrCreateCart(user);
 
-        // Return all items to stock
-        for (CartItem item : cart.getItems()) {
-            Product product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
-        }
+        // Release all held stock
+        stockReservationService.releaseAll(cart);
 
         cartItemRepository.deleteAllByCartId(cart.getId());
         cart.getItems().clear();
@@ -180,11 +149,6 @@ public class CartService {
                 });
     }
 
-    private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
-    }
-
     private Product findProductById(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
@@ -3,6 +3,7 @@ package com.diya.service;
 
 import com.diya.dto.request.CategoryRequest;
 import com.diya.dto.response.CategoryResponse;
+import com.diya.exception.BadRequestException;
 import com.diya.exception.DuplicateResourceException;
 import com.diya.exception.ResourceNotFoundException;
 import com.diya.mapper.CategoryMapper;
@@ -20,37 +21,40 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeService categoryTreeService;
     private final CategoryMapper categoryMapper;
 
     public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findAll().stream()
+        return categoryTreeService.getTree().getAll().stream()
                 .map(categoryMapper::toCategoryResponse)
                 .collect(Collectors.toList());
     }
 
     public List<CategoryResponse> getRootCategories() {
-        return categoryRepository.findByParentIsNull().stream()
+        return categoryTreeService.getTree().getRoots().stream()
                 .map(categoryMapper::toCategoryResponse)
                 .collect(Collectors.toList());
     }
 
     public CategoryResponse getCategoryById(Long id) {
-        Category category = findCategoryById(id);
-        return categoryMapper.toCategoryResponse(category);
+        CategoryTree.Node node = categoryTreeService.getTree().findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        return categoryMapper.toCategoryResponse(node);
     }
 
     public CategoryResponse getCategoryBySlug(String slug) {
-        Category category = categoryRepository.findBySlug(slug)
+        CategoryTree.Node node = categoryTreeService.getTree().findBySlug(slug)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with slug: " + slug));
-        return categoryMapper.toCategoryResponse(category);
+        return categoryMapper.toCategoryResponse(node);
     }
 
     public List<CategoryResponse> getSubcategories(Long parentId) {
-        if (!categoryRepository.existsById(parentId)) {
+        CategoryTree tree = categoryTreeService.getTree();
+        if (tree.findById(parentId).isEmpty()) {
             throw new ResourceNotFoundException("Parent category not found with id: " + parentId);
         }
         
-        return categoryRepository.findSubcategories(parentId).stream()
+        return tree.getChildren(parentId).stream()
                 .map(categoryMapper::toCategoryResponse)
                 .collect(Collectors.toList());
     }
@@ -69,6 +73,9 @@ public class CategoryService {
         }
         
         Category savedCategory = categoryRepository.save(category);
+        // The id is only known after the insert; the path is written when the transaction flushes
+        savedCategory.setPath(childPath(savedCategory.getParent(), savedCategory.getId()));
+        categoryTreeService.rebuildAfterCommit();
         return categoryMapper.toCategoryResponse(savedCategory);
     }
 
@@ -85,16 +92,31 @@ public class CategoryService {
         
         if (categoryRequest.getParentId() != null) {
             if (id.equals(categoryRequest.getParentId())) {
-                throw new IllegalArgumentException("Category cannot be its own parent");
+                throw new BadRequestException("Category cannot be its own parent");
             }
             
             Category parentCategory = findCategoryById(categoryRequest.getParentId());
+            if (category.getPath() != null && parentCategory.getPath() != null
+                    && parentCategory.getPath().startsWith(category.getPath())) {
+                throw new BadRequestException("Category cannot be moved under one of its subcategories");
+            }
             category.setParent(parentCategory);
         } else {
             category.setParent(null);
         }
         
+        // Re-parenting rewrites the path prefix of the whole subtree in one statement
+        String oldPath = category.getPath();
+        String newPath = childPath(category.getParent(), id);
+        if (!newPath.equals(oldPath)) {
+            category.setPath(newPath);
+            if (oldPath != null) {
+                categoryRepository.movePathPrefix(oldPath, newPath);
+            }
+        }
+        
         Category updatedCategory = categoryRepository.save(category);
+        categoryTreeService.rebuildAfterCommit();
         return categoryMapper.toCategoryResponse(updatedCategory);
     }
 
@@ -102,6 +124,11 @@ public class CategoryService {
     public void deleteCategory(Long id) {
         Category category = findCategoryById(id);
         categoryRepository.delete(category);
+        categoryTreeService.rebuildAfterCommit();
+    }
+
+    private String childPath(Category parent, Long id) {
+        return (parent != null ? parent.getPath() : "/") + id + "/";
     }
 
     private Category findCategoryById(Long id) {
@@ -0,0 +1,146 @@
+package com.diya.service;
+
+import com.diya.model.Category;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Immutable copy of the whole category hierarchy. Nodes refer to each other by id only, so a
+// snapshot never holds on to entities or a persistence context.
+public final class CategoryTree {
+
+    private final Map<Long, Node> byId;
+    private final Map<String, Node> bySlug;
+    private final List<Node> all;
+    private final List<Node> roots;
+
+    private CategoryTree(Map<Long, Node> byId, Map<String, Node> bySlug, List<Node> roots) {
+        this.byId = byId;
+        this.bySlug = bySlug;
+        this.all = List.copyOf(byId.values());
+        this.roots = roots;
+    }
+
+    public static CategoryTree of(List<Category> categories) {
+        List<Category> ordered = new ArrayList<>(categories);
+        ordered.sort(Comparator.comparing(Category::getId));
+
+        Map<Long, Category> entities = new HashMap<>();
+        Map<Long, List<Long>> childIds = new HashMap<>();
+        for (Category category : ordered) {
+            entities.put(category.getId(), category);
+            Long parentId = parentId(category);
+            if (parentId != null) {
+                childIds.computeIfAbsent(parentId, key -> new ArrayList<>()).add(category.getId());
+            }
+        }
+
+        Map<Long, Node> byId = new LinkedHashMap<>();
+        Map<String, Node> bySlug = new HashMap<>();
+        List<Node> roots = new ArrayList<>();
+        for (Category category : ordered) {
+            Long parentId = parentId(category);
+            Category parent = parentId != null ? entities.get(parentId) : null;
+            Node node = new Node(
+                    category.getId(),
+                    category.getName(),
+                    category.getSlug(),
+                    category.getDescription(),
+                    category.getImageUrl(),
+                    category.getPath(),
+                    parentId,
+                    parent != null ? parent.getName() : null,
+                    depth(category, entities),
+                    List.copyOf(childIds.getOrDefault(category.getId(), List.of())),
+                    category.getCreatedAt(),
+                    category.getUpdatedAt());
+            byId.put(node.id(), node);
+            // Slugs are not unique in the schema; the lowest id wins, as with an unordered lookup before
+            bySlug.putIfAbsent(node.slug(), node);
+            if (parentId == null) {
+                roots.add(node);
+            }
+        }
+        return new CategoryTree(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(bySlug), List.copyOf(roots));
+    }
+
+    public Optional<Node> findById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Optional<Node> findBySlug(String slug) {
+        return Optional.ofNullable(bySlug.get(slug));
+    }
+
+    public List<Node> getAll() {
+        return all;
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    public List<Node> getChildren(Long id) {
+        Node node = byId.get(id);
+        if (node == null) {
+            return List.of();
+        }
+        List<Node> children = new ArrayList<>(node.childIds().size());
+        node.childIds().forEach(childId -> children.add(byId.get(childId)));
+        return children;
+    }
+
+    public Set<Long> getSubtreeIds(Long id) {
+        Set<Long> ids = new LinkedHashSet<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        pending.push(id);
+        while (!pending.isEmpty()) {
+            Node node = byId.get(pending.pop());
+            if (node != null && ids.add(node.id())) {
+                node.childIds().forEach(pending::push);
+            }
+        }
+        return ids;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private static Long parentId(Category category) {
+        // getId() on the lazy parent proxy does not initialize it
+        return category.getParent() != null ? category.getParent().getId() : null;
+    }
+
+    private static int depth(Category category, Map<Long, Category> entities) {
+        int depth = 0;
+        Long parentId = parentId(category);
+        // Bounded by the number of categories in case bad data ever forms a cycle
+        while (parentId != null && depth < entities.size()) {
+            depth++;
+            Category parent = entities.get(parentId);
+            parentId = parent != null ? parentId(parent) : null;
+        }
+        return depth;
+    }
+
+    public record Node(Long id, String name, String slug, String description, String imageUrl, String path,
+                       Long parentId, String parentName, int depth, List<Long> childIds,
+                       LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        public boolean hasChildren() {
+            return !childIds.isEmpty();
+        }
+    }
+}
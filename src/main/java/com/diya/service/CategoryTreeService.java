@@ -0,0 +1,77 @@
+package com.diya.service;
+
+import com.diya.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Serves category reads from an immutable CategoryTree. Writes on this node swap in a fresh
+// snapshot once they commit; the periodic refresh picks up writes made on other nodes.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeService {
+
+    private final CategoryRepository categoryRepository;
+    private final ProductResponseCache productResponseCache;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile CategoryTree tree;
+
+    public CategoryTree getTree() {
+        CategoryTree current = tree;
+        return current != null ? current : rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.categories.refresh-interval-ms:300000}",
+               fixedDelayString = "${app.categories.refresh-interval-ms:300000}")
+    public void refresh() {
+        CategoryTree previous = tree;
+        CategoryTree rebuilt = rebuild();
+        // A change made on another node also has to reach the product responses cached here
+        if (previous != null && !previous.getAll().equals(rebuilt.getAll())) {
+            productResponseCache.clear();
+        }
+    }
+
+    // Rebuilds once the surrounding transaction commits, or right away outside one
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCategoriesChanged();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                onCategoriesChanged();
+            }
+        });
+    }
+
+    private void onCategoriesChanged() {
+        rebuild();
+        // Cached product responses embed their category
+        productResponseCache.clear();
+    }
+
+    private CategoryTree rebuild() {
+        // Rebuilds run one at a time, so the last snapshot swapped in was also the last one read
+        rebuildLock.lock();
+        try {
+            CategoryTree rebuilt = CategoryTree.of(categoryRepository.findAll());
+            tree = rebuilt;
+            log.debug("Rebuilt category tree with {} categories", rebuilt.size());
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
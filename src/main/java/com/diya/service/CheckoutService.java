@@ -6,29 +6,31 @@ import com.diya.exception.ResourceNotFoundException;
 import com.diya.mapper.OrderMapper;
 import com.diya.model.*;
 import com.diya.repository.*;
+import com.diya.security.CurrentUserResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 
 @Service
 @RequiredArgsConstructor
 public class CheckoutService {
 
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
     private final CartRepository cartRepository;
     private final AddressRepository addressRepository;
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final PaymentRepository paymentRepository;
     private final CartItemRepository cartItemRepository;
     private final StockManagementService stockManagementService;
+    private final StockReservationService stockReservationService;
+    private final BestSellerService bestSellerService;
     private final OrderMapper orderMapper;
 
     @Transactional
     public OrderResponse checkout(String username, CheckoutRequest checkoutRequest) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Cart cart = cartRepository.findByUser(user)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + username));
 
@@ -40,8 +42,8 @@ public class CheckoutService {
         Address shippingAddress = validateShippingAddress(checkoutRequest, user);
         Address billingAddress = validateBillingAddress(checkoutRequest, user, shippingAddress);
 
-        // Check stock and validate products
-        stockManagementService.validateStock(cart.getItems());
+        // Reserve stock for every cart line in one conditional batch update
+        stockManagementService.reserveStockForCheckout(cart);
 
         // Calculate totals
         BigDecimal subtotal = cart.getTotalPrice();
@@ -50,17 +52,14 @@ public class CheckoutService {
         BigDecimal taxAmount = subtotal.multiply(taxRate);
         BigDecimal totalAmount = subtotal.add(shippingCost).add(taxAmount);
 
-        // Create the order
+        // Build the order with its items and payment, then persist the whole graph with one cascading save.
+        // Sequence ids let Hibernate batch the inserts when the transaction flushes.
         Order order = createOrder(user, shippingAddress, billingAddress, subtotal, shippingCost, taxAmount, totalAmount, checkoutRequest.getNotes());
-
-        // Add order items
         createOrderItems(cart, order);
-
-        // Update product stock
-        stockManagementService.updateStockForCheckout(cart.getItems());
-
-        // Create payment record
         createPayment(order, totalAmount, checkoutRequest.getPaymentMethod());
+        orderRepository.save(order);
+
+        bestSellerService.recordOrder(order);
 
         // Clear the cart
         clearCart(cart);
@@ -105,7 +104,7 @@ public class CheckoutService {
     private Order createOrder(User user, Address shippingAddress, Address billingAddress,
                               BigDecimal subtotal, BigDecimal shippingCost, BigDecimal taxAmount,
                               BigDecimal totalAmount, String notes) {
-        Order order = Order.builder()
+        return Order.builder()
                 .user(user)
                 .status(Order.OrderStatus.PENDING)
                 .shippingAddress(shippingAddress)
@@ -115,9 +114,8 @@ public class CheckoutService {
                 .taxAmount(taxAmount)
                 .totalAmount(totalAmount)
                 .notes(notes)
+                .items(new ArrayList<>())
                 .build();
-
-        return orderRepository.save(order);
     }
 
     private void createOrderItems(Cart cart, Order order) {
@@ -134,7 +132,6 @@ public class CheckoutService {
                     .build();
 
             order.getItems().add(orderItem);
-            orderItemRepository.save(orderItem);
         }
     }
 
@@ -147,17 +144,12 @@ public class CheckoutService {
                 .amount(totalAmount)
                 .build();
 
-        paymentRepository.save(payment);
         order.setPayment(payment);
     }
 
     private void clearCart(Cart cart) {
         cart.getItems().clear();
         cartItemRepository.deleteAllByCartId(cart.getId());
-    }
-
-    private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
+        stockReservationService.releaseAll(cart);
     }
 }
\ No newline at end of file
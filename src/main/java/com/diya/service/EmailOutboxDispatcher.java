@@ -0,0 +1,171 @@
+package com.diya.service;
+
+import com.diya.model.EmailOutbox;
+import com.diya.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains email_outbox in batches on a bounded worker pool. Each batch is claimed with
+// FOR UPDATE SKIP LOCKED and leased, so several instances can dispatch without sending twice;
+// a lease that runs out (e.g. the instance died mid-send) makes the email due again.
+@Component
+@ConditionalOnProperty(name = "app.mail.outbox.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    @Value("${app.mail.outbox.workers:4}")
+    private int workers;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    @Value("${app.mail.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private AsyncTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            // A virtual thread per send, capped at the worker count so SMTP sees the same concurrency
+            SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("email-outbox-");
+            virtualExecutor.setVirtualThreads(true);
+            virtualExecutor.setConcurrencyLimit(workers);
+            executor = virtualExecutor;
+        } else {
+            ThreadPoolTaskExecutor poolExecutor = new ThreadPoolTaskExecutor();
+            poolExecutor.setCorePoolSize(workers);
+            poolExecutor.setMaxPoolSize(workers);
+            poolExecutor.setQueueCapacity(batchSize);
+            poolExecutor.setThreadNamePrefix("email-outbox-");
+            poolExecutor.initialize();
+            executor = poolExecutor;
+        }
+
+        Gauge.builder("email.outbox.pending", pending, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor poolExecutor) {
+            poolExecutor.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor virtualExecutor) {
+            virtualExecutor.close();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        List<EmailOutbox> batch;
+        do {
+            batch = claimBatch();
+            List<Future<?>> sends = new ArrayList<>(batch.size());
+            for (EmailOutbox email : batch) {
+                sends.add(executor.submit(() -> deliver(email)));
+            }
+            // The next batch is only claimed once this one is done, so the queue never outgrows the pool
+            for (Future<?> send : sends) {
+                try {
+                    send.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    log.error("Email outbox worker failed", e.getCause());
+                }
+            }
+        } while (batch.size() == batchSize);
+
+        pending.set(emailOutboxRepository.countByStatus(EmailOutbox.Status.PENDING));
+    }
+
+    private List<EmailOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = emailOutboxRepository.findDueForUpdate(now, batchSize);
+            for (EmailOutbox email : due) {
+                email.setStatus(EmailOutbox.Status.SENDING);
+                email.setAttempts(email.getAttempts() + 1);
+                email.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+    }
+
+    private void deliver(EmailOutbox email) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result;
+        try {
+            emailService.deliver(email);
+            emailOutboxRepository.markSent(email.getId(), LocalDateTime.now());
+            result = "sent";
+        } catch (Exception e) {
+            boolean exhausted = email.getAttempts() >= maxAttempts;
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMs(email.getAttempts())));
+            emailOutboxRepository.markFailedAttempt(email.getId(),
+                    exhausted ? EmailOutbox.Status.FAILED : EmailOutbox.Status.PENDING,
+                    nextAttemptAt, truncate(e.getMessage()));
+            result = exhausted ? "failed" : "retry";
+            log.warn("Failed to send email {} to {} (attempt {}): {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), e.getMessage());
+        }
+        sample.stop(Timer.builder("email.send")
+                .tag("result", result)
+                .register(meterRegistry));
+    }
+
+    // Exponential backoff: base, 2x base, 4x base, ... capped at the maximum
+    private long backoffMs(int attempts) {
+        int exponent = Math.min(attempts - 1, 20);
+        return Math.min(retryBackoffMs << exponent, maxBackoffMs);
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -1,7 +1,7 @@
-
-
 package com.diya.service;
 
+import com.diya.model.EmailOutbox;
+import com.diya.repository.EmailOutboxRepository;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -9,11 +9,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import java.time.LocalDateTime;
+
+// Emails are rendered and written to the outbox in the caller's transaction, so they are only sent
+// if the business change commits. EmailOutboxDispatcher delivers them over SMTP.
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -21,6 +25,7 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final EmailOutboxRepository emailOutboxRepository;
 
     @Value("${spring.mail.username}")
     private String fromEmail;
@@ -28,54 +33,48 @@ public class EmailService {
     @Value("${app.frontend-url}")
     private String frontendUrl;
 
-    @Async
-    public void sendPasswordResetEmail(String toEmail, String token) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Password Reset Request");
+    @Transactional
+    public void queuePasswordResetEmail(String toEmail, String token) {
+        Context context = new Context();
+        context.setVariable("token", token);
+        context.setVariable("resetUrl", frontendUrl + "/reset-password?token=" + token);
+        context.setVariable("userName", toEmail);
 
-            Context context = new Context();
-            context.setVariable("token", token);
-            context.setVariable("resetUrl", frontendUrl + "/reset-password?token=" + token);
-            context.setVariable("userName", toEmail);
+        queue(toEmail, "Password Reset Request", templateEngine.process("password-reset-email", context));
+    }
 
-            String htmlContent = templateEngine.process("password-reset-email", context);
-            helper.setText(htmlContent, true);
+    @Transactional
+    public void queueOrderConfirmationEmail(String toEmail, String orderNumber, String orderDetails) {
+        Context context = new Context();
+        context.setVariable("orderNumber", orderNumber);
+        context.setVariable("orderDetails", orderDetails);
+        context.setVariable("orderUrl", frontendUrl + "/orders/" + orderNumber);
+        context.setVariable("userName", toEmail);
 
-            mailSender.send(message);
-            log.info("Password reset email sent to: {}", toEmail);
-        } catch (MessagingException e) {
-            log.error("Failed to send password reset email to {}: {}", toEmail, e.getMessage());
-        }
+        queue(toEmail, "Order Confirmation #" + orderNumber, templateEngine.process("order-confirmation-email", context));
     }
 
-    @Async
-    public void sendOrderConfirmationEmail(String toEmail, String orderNumber, String orderDetails) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(toEmail);
-            helper.setSubject("Order Confirmation #" + orderNumber);
+    public void deliver(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            Context context = new Context();
-            context.setVariable("orderNumber", orderNumber);
-            context.setVariable("orderDetails", orderDetails);
-            context.setVariable("orderUrl", frontendUrl + "/orders/" + orderNumber);
-            context.setVariable("userName", toEmail);
+        helper.setFrom(fromEmail);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
 
-            String htmlContent = templateEngine.process("order-confirmation-email", context);
-            helper.setText(htmlContent, true);
+        mailSender.send(message);
+        log.info("Email {} sent to: {}", email.getId(), email.getRecipient());
+    }
 
-            mailSender.send(message);
-            log.info("Order confirmation email sent to: {}", toEmail);
-        } catch (MessagingException e) {
-            log.error("Failed to send order confirmation email to {}: {}", toEmail, e.getMessage());
-        }
+    private void queue(String toEmail, String subject, String body) {
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .recipient(toEmail)
+                .subject(subject)
+                .body(body)
+                .status(EmailOutbox.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
     }
 }
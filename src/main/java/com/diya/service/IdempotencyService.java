@@ -0,0 +1,205 @@
+package com.diya.service;
+
+import com.diya.exception.BadRequestException;
+import com.diya.exception.DuplicateResourceException;
+import com.diya.model.IdempotencyRecord;
+import com.diya.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Runs a request at most once per (user, Idempotency-Key). The first request claims the key in
+// idempotency_keys and stores its response in the same transaction as its own work; replays get the
+// stored response. Duplicates on this node wait on the first request's future, and duplicates on
+// other nodes poll the table until the claim completes or lapses.
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.lock-seconds:60}")
+    private long lockSeconds;
+
+    @Value("${app.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.idempotency.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${app.idempotency.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    public <T> T execute(String username, String key, Object request, Class<T> responseType, Supplier<T> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        if (!key.chars().allMatch(c -> c > 0x20 && c < 0x7f)) {
+            throw new BadRequestException("Idempotency-Key may only contain visible ASCII characters");
+        }
+
+        String requestHash = hash(request);
+        String scope = username + '\n' + key;
+        InFlight mine = new InFlight(requestHash);
+        InFlight running = inFlight.putIfAbsent(scope, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash, requestHash);
+            return responseType.cast(await(running.result));
+        }
+
+        try {
+            T response = claimAndExecute(username, key, requestHash, responseType, action);
+            mine.result.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scope, mine);
+        }
+    }
+
+    public int deleteExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        int batch;
+        do {
+            batch = idempotencyRecordRepository.deleteExpiredBatch(now, sweepBatchSize);
+            deleted += batch;
+        } while (batch == sweepBatchSize);
+        return deleted;
+    }
+
+    private <T> T claimAndExecute(String username, String key, String requestHash, Class<T> responseType, Supplier<T> action) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            String claimToken = UUID.randomUUID().toString();
+            if (idempotencyRecordRepository.claim(username, key, requestHash, claimToken,
+                    now.plusSeconds(lockSeconds), now.plusHours(ttlHours), now) == 1) {
+                return executeClaimed(username, key, claimToken, action);
+            }
+
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByUsernameAndIdempotencyKey(username, key);
+            if (existing.isPresent()) {
+                IdempotencyRecord record = existing.get();
+                checkSameRequest(record.getRequestHash(), requestHash);
+                if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                    return readResponse(record.getResponseBody(), responseType);
+                }
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+            }
+            sleep(pollIntervalMs);
+        }
+    }
+
+    private <T> T executeClaimed(String username, String key, String claimToken, Supplier<T> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                T response = action.get();
+                if (idempotencyRecordRepository.complete(username, key, claimToken, writeResponse(response)) == 0) {
+                    // The claim lapsed and another request took the key over; roll this attempt back
+                    throw new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+                }
+                return response;
+            });
+        } catch (RuntimeException e) {
+            // A failed attempt gives the key back so the client can retry with it
+            idempotencyRecordRepository.release(username, key, claimToken);
+            throw e;
+        }
+    }
+
+    private Object await(CompletableFuture<Object> result) {
+        try {
+            return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new DuplicateResourceException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request", e);
+        }
+    }
+
+    private void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new DuplicateResourceException("Idempotency-Key was already used with a different request");
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
+    }
+
+    private String writeResponse(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not store idempotent response", e);
+        }
+    }
+
+    private <T> T readResponse(String body, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read stored idempotent response", e);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a duplicate request", e);
+        }
+    }
+
+    private static class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
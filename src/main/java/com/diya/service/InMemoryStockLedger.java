@@ -0,0 +1,276 @@
+package com.diya.service;
+
+import com.diya.exception.ResourceNotFoundException;
+import com.diya.model.InventoryFlush;
+import com.diya.repository.InventoryFlushRepository;
+import com.diya.repository.ProductRepository;
+import com.diya.repository.ProductStockRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Single-node inventory mode: stock counters live in memory and every change is journaled to disk
+// before it is acknowledged. Journal segments are applied to products.stock as net deltas, and each
+// applied segment is recorded in inventory_flushes in the same transaction so replay is idempotent.
+@Service
+@ConditionalOnProperty(name = "app.inventory.mode", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class InMemoryStockLedger {
+
+    private static final String ACTIVE_JOURNAL = "active.log";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final ProductRepository productRepository;
+    private final ProductStockRepository productStockRepository;
+    private final InventoryFlushRepository inventoryFlushRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Value("${app.inventory.journal-dir:${java.io.tmpdir}/diya-inventory}")
+    private String journalDir;
+
+    @Value("${app.inventory.journal-fsync:false}")
+    private boolean journalFsync;
+
+    private Path journalPath;
+    private FileChannel journal;
+
+    @PostConstruct
+    public void recover() throws IOException {
+        Path directory = Paths.get(journalDir);
+        Files.createDirectories(directory);
+        journalPath = directory.resolve(ACTIVE_JOURNAL);
+
+        // A journal left behind by a crash becomes a regular segment and is replayed below
+        if (Files.exists(journalPath) && Files.size(journalPath) > 0) {
+            Files.move(journalPath, directory.resolve(newSegmentName()), StandardCopyOption.ATOMIC_MOVE);
+        }
+        applyPendingSegments();
+        journal = openJournal();
+    }
+
+    public int getStock(Long productId) {
+        return counter(productId).get();
+    }
+
+    // Lock-free: the counter is only decremented if it still covers the quantity plus other carts' holds
+    public boolean tryReserve(Long productId, int quantity, long heldByOthers) {
+        AtomicInteger counter = counter(productId);
+        while (true) {
+            int current = counter.get();
+            if (current - heldByOthers < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                break;
+            }
+        }
+
+        try {
+            append(productId, -quantity);
+        } catch (UncheckedIOException e) {
+            counter.addAndGet(quantity);
+            throw e;
+        }
+        return true;
+    }
+
+    public void release(Long productId, int quantity) {
+        adjust(productId, quantity);
+    }
+
+    public void adjust(Long productId, int delta) {
+        AtomicInteger counter = counter(productId);
+        counter.addAndGet(delta);
+        try {
+            append(productId, delta);
+        } catch (UncheckedIOException e) {
+            counter.addAndGet(-delta);
+            throw e;
+        }
+    }
+
+    // Sets an absolute level; the CAS loop keeps a concurrent reservation from being overwritten
+    public void set(Long productId, int level) {
+        AtomicInteger counter = counter(productId);
+        int delta;
+        while (true) {
+            int current = counter.get();
+            delta = level - current;
+            if (counter.compareAndSet(current, level)) {
+                break;
+            }
+        }
+        if (delta == 0) {
+            return;
+        }
+
+        try {
+            append(productId, delta);
+        } catch (UncheckedIOException e) {
+            counter.addAndGet(-delta);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            rotateJournal();
+            applyPendingSegments();
+        } catch (IOException e) {
+            log.error("Failed to flush inventory journal: {}", e.getMessage(), e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    private AtomicInteger counter(Long productId) {
+        // Counters are never evicted, so a missing counter means products.stock has no pending deltas.
+        // The stock is read outside computeIfAbsent: the map locks its bin while the function runs,
+        // which would pin a virtual thread for the whole query.
+        AtomicInteger counter = counters.get(productId);
+        if (counter != null) {
+            return counter;
+        }
+        int stock = productRepository.findStockById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+        counter = counters.putIfAbsent(productId, new AtomicInteger(stock));
+        return counter != null ? counter : counters.get(productId);
+    }
+
+    private void append(Long productId, int delta) {
+        ByteBuffer entry = ByteBuffer.wrap((productId + " " + delta + "\n").getBytes(StandardCharsets.US_ASCII));
+        journalLock.lock();
+        try {
+            while (entry.hasRemaining()) {
+                journal.write(entry);
+            }
+            if (journalFsync) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append inventory journal entry", e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void rotateJournal() throws IOException {
+        journalLock.lock();
+        try {
+            if (journal.size() == 0) {
+                return;
+            }
+            journal.force(false);
+            journal.close();
+            Files.move(journalPath, journalPath.resolveSibling(newSegmentName()), StandardCopyOption.ATOMIC_MOVE);
+            journal = openJournal();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    private void applyPendingSegments() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(journalPath.getParent())) {
+            segments = files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (Path segment : segments) {
+            applySegment(segment);
+        }
+    }
+
+    private void applySegment(Path segment) throws IOException {
+        String segmentId = segment.getFileName().toString();
+        SortedMap<Long, Integer> deltas = readDeltas(segment);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (inventoryFlushRepository.existsById(segmentId)) {
+                return;
+            }
+            if (!deltas.isEmpty()) {
+                productStockRepository.adjustStock(deltas);
+            }
+            inventoryFlushRepository.save(InventoryFlush.builder()
+                    .segmentId(segmentId)
+                    .appliedAt(LocalDateTime.now())
+                    .build());
+        });
+
+        Files.delete(segment);
+        log.debug("Applied inventory segment {} with {} product deltas", segmentId, deltas.size());
+    }
+
+    private SortedMap<Long, Integer> readDeltas(Path segment) throws IOException {
+        String content = Files.readString(segment, StandardCharsets.US_ASCII);
+        String[] lines = content.split("\n");
+        // A trailing line without a newline was cut off by a crash and was never acknowledged
+        int complete = content.endsWith("\n") ? lines.length : lines.length - 1;
+
+        SortedMap<Long, Integer> deltas = new TreeMap<>();
+        for (int i = 0; i < complete; i++) {
+            String[] parts = lines[i].split(" ");
+            if (parts.length == 2) {
+                deltas.merge(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Integer::sum);
+            }
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private String newSegmentName() {
+        return SEGMENT_PREFIX + System.currentTimeMillis() + "-" + UUID.randomUUID() + SEGMENT_SUFFIX;
+    }
+}
@@ -0,0 +1,94 @@
+package com.diya.service;
+
+import com.diya.dto.response.CursorPagedResponse;
+import com.diya.exception.BadRequestException;
+import com.diya.repository.KeysetPageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class KeysetPaginationService {
+
+    private static final String CURSOR_VERSION = "v1";
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final KeysetPageRepository keysetPageRepository;
+
+    public <T, R> CursorPagedResponse<R> scroll(Class<T> entityType, String table, Specification<T> filter,
+                                               String sortProperty, Sort.Direction direction,
+                                               String cursor, int size, String total, Function<T, R> mapper) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        String afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decode(cursor, sortProperty, direction);
+            try {
+                afterId = Long.valueOf(parts[3]);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            afterValue = parts[4];
+        }
+
+        // One extra row tells us whether another page exists without counting
+        List<T> rows = keysetPageRepository.findAfter(
+                entityType, filter, sortProperty, direction, afterValue, afterId, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<T> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = hasNext ? encode(page.get(page.size() - 1), sortProperty, direction) : null;
+
+        Long totalElements = null;
+        boolean totalEstimated = false;
+        if ("exact".equalsIgnoreCase(total)) {
+            totalElements = keysetPageRepository.count(entityType, filter);
+        } else if ("estimate".equalsIgnoreCase(total)) {
+            totalElements = keysetPageRepository.estimateRowCount(table);
+            totalEstimated = true;
+        }
+
+        List<R> content = page.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+
+        return new CursorPagedResponse<>(content, pageSize, nextCursor, hasNext, totalElements, totalEstimated);
+    }
+
+    private String encode(Object entity, String sortProperty, Sort.Direction direction) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        String raw = String.join("|",
+                CURSOR_VERSION,
+                sortProperty,
+                direction.name(),
+                String.valueOf(wrapper.getPropertyValue("id")),
+                String.valueOf(wrapper.getPropertyValue(sortProperty)));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decode(String cursor, String sortProperty, Sort.Direction direction) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 5);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+
+        if (parts.length != 5 || !CURSOR_VERSION.equals(parts[0])
+                || !sortProperty.equals(parts[1]) || !direction.name().equals(parts[2])) {
+            throw new BadRequestException("Cursor does not match the requested sort order");
+        }
+        return parts;
+    }
+}
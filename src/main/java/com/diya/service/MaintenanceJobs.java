@@ -0,0 +1,63 @@
+package com.diya.service;
+
+import com.diya.repository.TokenPurgeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Cluster-wide cleanup jobs; each runs on one node per trigger through ScheduledJobRunner
+@Component
+@RequiredArgsConstructor
+public class MaintenanceJobs {
+
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(30);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofMinutes(1);
+
+    private final ScheduledJobRunner scheduledJobRunner;
+    private final TokenPurgeService tokenPurgeService;
+    private final PromotionService promotionService;
+    private final StockReservationService stockReservationService;
+    private final IdempotencyService idempotencyService;
+
+    @Scheduled(fixedDelayString = "${app.cart.reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        scheduledJobRunner.run("reservation-sweep", Duration.ofMinutes(5), Duration.ofSeconds(30),
+                stockReservationService::releaseExpiredReservations, false);
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval-ms:300000}")
+    public void deleteExpiredIdempotencyKeys() {
+        scheduledJobRunner.run("idempotency-key-cleanup", LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR,
+                idempotencyService::deleteExpiredKeys);
+    }
+
+    @Scheduled(cron = "${app.maintenance.refresh-token-cleanup-cron:0 0 0 * * *}")
+    public void deleteExpiredRefreshTokens() {
+        scheduledJobRunner.run("refresh-token-cleanup", LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR,
+                () -> purge(TokenPurgeRepository.Target.REFRESH_TOKENS));
+    }
+
+    @Scheduled(cron = "${app.maintenance.reset-token-cleanup-cron:0 15 * * * *}")
+    public void deleteExpiredPasswordResetTokens() {
+        scheduledJobRunner.run("reset-token-cleanup", LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR,
+                () -> purge(TokenPurgeRepository.Target.PASSWORD_RESET_TOKENS));
+    }
+
+    @Scheduled(cron = "${app.maintenance.email-outbox-cleanup-cron:0 30 0 * * *}")
+    public void deleteOldOutboxEmails() {
+        scheduledJobRunner.run("email-outbox-cleanup", LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR,
+                () -> purge(TokenPurgeRepository.Target.EMAIL_OUTBOX));
+    }
+
+    @Scheduled(cron = "${app.maintenance.promotion-expiry-cron:0 5 * * * *}")
+    public void deactivateExpiredPromotions() {
+        scheduledJobRunner.run("promotion-expiry", LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR,
+                promotionService::deactivateExpiredPromotions);
+    }
+
+    private int purge(TokenPurgeRepository.Target target) {
+        return Math.toIntExact(tokenPurgeService.purge(target, false).getRowsDeleted());
+    }
+}
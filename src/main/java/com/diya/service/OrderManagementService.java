@@ -1,6 +1,7 @@
 package com.diya.service;
 
 import com.diya.dto.request.OrderStatusUpdateRequest;
+import com.diya.dto.response.CursorPagedResponse;
 import com.diya.dto.response.OrderResponse;
 import com.diya.dto.response.PagedResponse;
 import com.diya.exception.ResourceNotFoundException;
@@ -10,10 +11,11 @@ import com.diya.model.Payment;
 import com.diya.model.User;
 import com.diya.repository.OrderRepository;
 import com.diya.repository.PaymentRepository;
-import com.diya.repository.UserRepository;
+import com.diya.security.CurrentUserResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,9 +27,11 @@ import java.util.stream.Collectors;
 public class OrderManagementService {
 
     private final OrderRepository orderRepository;
-    private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
     private final PaymentRepository paymentRepository;
     private final StockManagementService stockManagementService;
+    private final BestSellerService bestSellerService;
+    private final KeysetPaginationService keysetPaginationService;
     private final OrderMapper orderMapper;
 
     public PagedResponse<OrderResponse> getAllOrders(Pageable pageable) {
@@ -35,6 +39,11 @@ public class OrderManagementService {
         return createPagedResponse(orders);
     }
 
+    public CursorPagedResponse<OrderResponse> scrollOrders(String cursor, int size, Sort.Direction direction, String total) {
+        return keysetPaginationService.scroll(Order.class, "orders", null, "createdAt", direction,
+                cursor, size, total, orderMapper::toOrderResponse);
+    }
+
     public OrderResponse getOrderById(Long id) {
         Order order = findOrderById(id);
         return orderMapper.toOrderResponse(order);
@@ -47,7 +56,7 @@ public class OrderManagementService {
     }
 
     public PagedResponse<OrderResponse> getOrdersByUser(String username, Pageable pageable) {
-        User user = findUserByEmail(username);
+        User user = currentUserResolver.resolve(username);
         Page<Order> orders = orderRepository.findByUser(user, pageable);
         return createPagedResponse(orders);
     }
@@ -60,6 +69,7 @@ public class OrderManagementService {
     @Transactional
     public OrderResponse updateOrderStatus(Long id, OrderStatusUpdateRequest request) {
         Order order = findOrderById(id);
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(request.getStatus());
 
         if (order.getStatus() == Order.OrderStatus.SHIPPED && request.getTrackingNumber() != null) {
@@ -68,9 +78,10 @@ public class OrderManagementService {
 
         Order updatedOrder = orderRepository.save(order);
 
-        // If the order is canceled, restore product stock
-        if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+        // If the order is canceled, restore product stock and take its items off the sales leaderboard
+        if (order.getStatus() == Order.OrderStatus.CANCELLED && previousStatus != Order.OrderStatus.CANCELLED) {
             stockManagementService.restoreStock(order);
+            bestSellerService.reverseOrder(order);
         }
 
         // Update payment status if needed
@@ -96,11 +107,6 @@ public class OrderManagementService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
     }
 
-    private User findUserByEmail(String email) {
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
-    }
-
     private PagedResponse<OrderResponse> createPagedResponse(Page<Order> orders) {
         List<OrderResponse> orderResponses = orders.getContent()
                 .stream()
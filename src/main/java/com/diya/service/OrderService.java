@@ -3,10 +3,12 @@ package com.diya.service;
 import com.diya.dto.request.CheckoutRequest;
 import com.diya.dto.request.OrderStatusUpdateRequest;
 import com.diya.dto.response.OrderResponse;
+import com.diya.dto.response.CursorPagedResponse;
 import com.diya.dto.response.PagedResponse;
 import com.diya.model.Order;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -15,11 +17,16 @@ public class OrderService {
 
     private final CheckoutService checkoutService;
     private final OrderManagementService orderManagementService;
+    private final IdempotencyService idempotencyService;
 
     public PagedResponse<OrderResponse> getAllOrders(Pageable pageable) {
         return orderManagementService.getAllOrders(pageable);
     }
 
+    public CursorPagedResponse<OrderResponse> scrollOrders(String cursor, int size, Sort.Direction direction, String total) {
+        return orderManagementService.scrollOrders(cursor, size, direction, total);
+    }
+
     public OrderResponse getOrderById(Long id) {
         return orderManagementService.getOrderById(id);
     }
@@ -36,8 +43,12 @@ public class OrderService {
         return orderManagementService.getOrdersByStatus(status, pageable);
     }
 
-    public OrderResponse checkout(String username, CheckoutRequest checkoutRequest) {
-        return checkoutService.checkout(username, checkoutRequest);
+    public OrderResponse checkout(String username, String idempotencyKey, CheckoutRequest checkoutRequest) {
+        if (idempotencyKey == null) {
+            return checkoutService.checkout(username, checkoutRequest);
+        }
+        return idempotencyService.execute(username, idempotencyKey, checkoutRequest, OrderResponse.class,
+                () -> checkoutService.checkout(username, checkoutRequest));
     }
 
     public OrderResponse updateOrderStatus(Long id, OrderStatusUpdateRequest request) {
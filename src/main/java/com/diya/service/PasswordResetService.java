@@ -11,6 +11,8 @@ import com.diya.model.PasswordResetToken;
 import com.diya.model.User;
 import com.diya.repository.PasswordResetTokenRepository;
 import com.diya.repository.UserRepository;
+import com.diya.security.RateLimitPolicy;
+import com.diya.security.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -29,9 +31,12 @@ public class PasswordResetService {
     private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final RateLimiter rateLimiter;
 
     @Transactional
     public MessageResponse requestPasswordReset(ForgotPasswordRequest request) {
+        rateLimiter.checkAccount(RateLimitPolicy.PASSWORD_RESET_ACCOUNT, request.getEmail());
+
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + request.getEmail()));
 
@@ -49,8 +54,8 @@ public class PasswordResetService {
 
         passwordResetTokenRepository.save(resetToken);
 
-        // Send email with password reset link
-        emailService.sendPasswordResetEmail(user.getEmail(), token);
+        // Queue the password reset email; it is sent once this transaction commits
+        emailService.queuePasswordResetEmail(user.getEmail(), token);
 
         return new MessageResponse("Password reset instructions have been sent to your email.");
     }
@@ -0,0 +1,392 @@
+package com.diya.service;
+
+import com.diya.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// In-memory faceted search over active products. Every product gets a dense int document id, and
+// each filterable value (attribute key/value, category, in stock) keeps a compressed bitmap of the
+// documents that have it. Filters and facet counts are bitmap intersections, so no query touches
+// the database. Product writes mark ids dirty after commit and are re-indexed in small batches;
+// a periodic full rebuild also compacts the ids of deleted products.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializes rebuilds and dirty refreshes, so an older read can never overwrite a newer one
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final Set<Long> dirtyIds = ConcurrentHashMap.newKeySet();
+
+    private volatile Index index = new Index();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("product.facets.documents", this, ProductFacetIndex::size)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.facets.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${app.facets.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        updateLock.lock();
+        try {
+            Index rebuilt = new Index();
+            transactionTemplate.execute(status -> {
+                try (Stream<Object[]> rows = productRepository.streamFacetRows()) {
+                    rows.forEach(rebuilt::put);
+                }
+                try (Stream<Object[]> rows = productRepository.streamAttributeRows()) {
+                    rows.forEach(row -> rebuilt.addAttribute((Long) row[0], (String) row[1], (String) row[2]));
+                }
+                return null;
+            });
+
+            lock.writeLock().lock();
+            try {
+                index = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Rebuilt product facet index with {} active products", rebuilt.live.getLongCardinality());
+            // Writes committed while the rebuild was reading may be missing from it
+            refreshDirty();
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    // Re-indexes the given products once the surrounding transaction commits
+    public void markDirty(Collection<Long> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dirtyIds.addAll(productIds);
+            return;
+        }
+        List<Long> ids = List.copyOf(productIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dirtyIds.addAll(ids);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.facets.refresh-interval-ms:1000}")
+    public void refreshDirty() {
+        updateLock.lock();
+        try {
+            while (!dirtyIds.isEmpty()) {
+                refreshBatch();
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public Result search(Query query, int page, int size) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long size() {
+        lock.readLock().lock();
+        try {
+            return index.live.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refreshBatch() {
+        List<Long> ids = new ArrayList<>();
+        Iterator<Long> iterator = dirtyIds.iterator();
+        while (iterator.hasNext() && ids.size() < 1000) {
+            ids.add(iterator.next());
+            iterator.remove();
+        }
+
+        List<Object[]> rows = productRepository.findFacetRows(ids);
+        List<Object[]> attributes = productRepository.findAttributeRows(ids);
+
+        lock.writeLock().lock();
+        try {
+            Index current = index;
+            // Products that are gone are removed; the others are re-added from their current row
+            ids.forEach(current::remove);
+            rows.forEach(current::put);
+            attributes.forEach(row -> current.addAttribute((Long) row[0], (String) row[1], (String) row[2]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public record Query(Set<Long> categoryIds, Map<String, Set<String>> attributes,
+                        BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly) {
+    }
+
+    public record Result(List<Long> productIds, long total, Map<String, Map<String, Long>> attributeFacets,
+                         Map<Long, Long> categoryFacets, long inStockCount) {
+    }
+
+    // Guarded by the enclosing lock: searches hold the read lock, updates and swaps the write lock
+    private static final class Index {
+        private final Map<Long, Integer> docsByProductId = new HashMap<>();
+        private long[] productIds = new long[1024];
+        private long[] categoryIds = new long[1024];
+        private long[] priceCents = new long[1024];
+        private int nextDoc;
+
+        private final RoaringBitmap live = new RoaringBitmap();
+        private final RoaringBitmap inStock = new RoaringBitmap();
+        private final Map<Long, RoaringBitmap> categories = new HashMap<>();
+        private final Map<String, Map<String, RoaringBitmap>> attributes = new TreeMap<>();
+        // The value bitmaps each document was added to, so removing it touches only those
+        private final Map<Integer, List<RoaringBitmap>> attributesByDoc = new HashMap<>();
+        // Documents by log-scale price bucket; see bucketOf
+        private final NavigableMap<Long, RoaringBitmap> priceBuckets = new TreeMap<>();
+
+        void put(Object[] row) {
+            Long productId = (Long) row[0];
+            Long categoryId = (Long) row[1];
+            BigDecimal price = (BigDecimal) row[2];
+            BigDecimal discountPrice = (BigDecimal) row[3];
+            Integer stock = (Integer) row[4];
+            boolean active = (Boolean) row[5];
+
+            int doc = docsByProductId.computeIfAbsent(productId, id -> allocate(id));
+            if (!active) {
+                // Inactive products are never listed, so only their document id is kept
+                return;
+            }
+            live.add(doc);
+            if (stock != null && stock > 0) {
+                inStock.add(doc);
+            }
+            if (categoryId != null) {
+                categoryIds[doc] = categoryId;
+                categories.computeIfAbsent(categoryId, id -> new RoaringBitmap()).add(doc);
+            }
+            // Customers filter on what they pay, so a discount price takes precedence
+            BigDecimal effectivePrice = discountPrice != null ? discountPrice : price;
+            priceCents[doc] = toCents(effectivePrice);
+            priceBuckets.computeIfAbsent(bucketOf(priceCents[doc]), bucket -> new RoaringBitmap()).add(doc);
+        }
+
+        void addAttribute(Long productId, String key, String value) {
+            Integer doc = docsByProductId.get(productId);
+            if (doc == null || !live.contains(doc) || key == null || value == null) {
+                return;
+            }
+            RoaringBitmap bitmap = attributes.computeIfAbsent(key, k -> new TreeMap<>())
+                    .computeIfAbsent(value, v -> new RoaringBitmap());
+            bitmap.add(doc);
+            attributesByDoc.computeIfAbsent(doc, d -> new ArrayList<>()).add(bitmap);
+        }
+
+        void remove(Long productId) {
+            Integer doc = docsByProductId.get(productId);
+            if (doc == null) {
+                return;
+            }
+            live.remove(doc);
+            inStock.remove(doc);
+            RoaringBitmap category = categories.get(categoryIds[doc]);
+            if (category != null) {
+                category.remove(doc);
+            }
+            categoryIds[doc] = 0;
+            RoaringBitmap bucket = priceBuckets.get(bucketOf(priceCents[doc]));
+            if (bucket != null) {
+                bucket.remove(doc);
+            }
+            List<RoaringBitmap> values = attributesByDoc.remove(doc);
+            if (values != null) {
+                values.forEach(bitmap -> bitmap.remove(doc));
+            }
+        }
+
+        Result search(Query query, int page, int size) {
+            // Everything except the attribute filters; each attribute's facet counts are taken without
+            // its own filter, so picking one value still shows the counts of the alternatives
+            RoaringBitmap base = live.clone();
+            if (query.categoryIds() != null) {
+                RoaringBitmap inCategories = new RoaringBitmap();
+                for (Long categoryId : query.categoryIds()) {
+                    RoaringBitmap category = categories.get(categoryId);
+                    if (category != null) {
+                        inCategories.or(category);
+                    }
+                }
+                base.and(inCategories);
+            }
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                base.and(filterByPrice(base, query.minPrice(), query.maxPrice()));
+            }
+            RoaringBitmap withoutStockFilter = base.clone();
+            if (query.inStockOnly()) {
+                base.and(inStock);
+            }
+
+            Map<String, RoaringBitmap> selected = new LinkedHashMap<>();
+            query.attributes().forEach((key, values) -> selected.put(key, union(key, values)));
+
+            RoaringBitmap result = base.clone();
+            selected.values().forEach(result::and);
+
+            Map<String, Map<String, Long>> attributeFacets = new LinkedHashMap<>();
+            attributes.forEach((key, values) -> {
+                RoaringBitmap scope = selected.containsKey(key) ? excluding(base, selected, key) : result;
+                Map<String, Long> counts = new LinkedHashMap<>();
+                values.forEach((value, bitmap) -> {
+                    long count = RoaringBitmap.andCardinality(scope, bitmap);
+                    if (count > 0) {
+                        counts.put(value, count);
+                    }
+                });
+                if (!counts.isEmpty()) {
+                    attributeFacets.put(key, counts);
+                }
+            });
+
+            Map<Long, Long> categoryFacets = new LinkedHashMap<>();
+            categories.forEach((categoryId, bitmap) -> {
+                long count = RoaringBitmap.andCardinality(result, bitmap);
+                if (count > 0) {
+                    categoryFacets.put(categoryId, count);
+                }
+            });
+
+            RoaringBitmap stockScope = withoutStockFilter.clone();
+            selected.values().forEach(stockScope::and);
+            long inStockCount = RoaringBitmap.andCardinality(stockScope, inStock);
+
+            return new Result(page(result, page, size), result.getLongCardinality(),
+                    attributeFacets, categoryFacets, inStockCount);
+        }
+
+        private RoaringBitmap union(String key, Set<String> values) {
+            RoaringBitmap union = new RoaringBitmap();
+            Map<String, RoaringBitmap> byValue = attributes.getOrDefault(key, Map.of());
+            for (String value : values) {
+                RoaringBitmap bitmap = byValue.get(value);
+                if (bitmap != null) {
+                    union.or(bitmap);
+                }
+            }
+            return union;
+        }
+
+        private RoaringBitmap excluding(RoaringBitmap base, Map<String, RoaringBitmap> selected, String key) {
+            RoaringBitmap scope = base.clone();
+            selected.forEach((otherKey, bitmap) -> {
+                if (!otherKey.equals(key)) {
+                    scope.and(bitmap);
+                }
+            });
+            return scope;
+        }
+
+        // Buckets strictly inside the range are taken whole; only the candidates in the two edge
+        // buckets have their exact price compared
+        private RoaringBitmap filterByPrice(RoaringBitmap candidates, BigDecimal minPrice, BigDecimal maxPrice) {
+            long min = minPrice != null ? toCents(minPrice) : Long.MIN_VALUE;
+            long max = maxPrice != null ? toCents(maxPrice) : Long.MAX_VALUE;
+            RoaringBitmap matching = new RoaringBitmap();
+            if (min > max || max < 0) {
+                return matching;
+            }
+            long lowBucket = bucketOf(min);
+            long highBucket = bucketOf(max);
+            for (Map.Entry<Long, RoaringBitmap> bucket : priceBuckets.subMap(lowBucket, true, highBucket, true).entrySet()) {
+                if (bucket.getKey() != lowBucket && bucket.getKey() != highBucket) {
+                    matching.or(bucket.getValue());
+                    continue;
+                }
+                RoaringBitmap.and(bucket.getValue(), candidates).forEach((int doc) -> {
+                    if (priceCents[doc] >= min && priceCents[doc] <= max) {
+                        matching.add(doc);
+                    }
+                });
+            }
+            return matching;
+        }
+
+        private List<Long> page(RoaringBitmap result, int page, int size) {
+            long offset = (long) page * size;
+            if (size <= 0 || offset >= result.getLongCardinality()) {
+                return List.of();
+            }
+            List<Long> ids = new ArrayList<>(size);
+            PeekableIntIterator iterator = result.getIntIterator();
+            iterator.advanceIfNeeded(result.select((int) offset));
+            while (iterator.hasNext() && ids.size() < size) {
+                ids.add(productIds[iterator.next()]);
+            }
+            return ids;
+        }
+
+        private int allocate(Long productId) {
+            if (nextDoc == productIds.length) {
+                int capacity = productIds.length * 2;
+                productIds = Arrays.copyOf(productIds, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+            }
+            productIds[nextDoc] = productId;
+            return nextDoc++;
+        }
+
+        // Monotonic bucket with 16 buckets per power of two, so an edge bucket spans at most 1/16 of
+        // its price's magnitude and a full price range needs only a few hundred buckets
+        private static long bucketOf(long cents) {
+            if (cents < 16) {
+                return Math.max(cents, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(cents);
+            return (long) (exponent - 4) * 16 + (cents >>> (exponent - 4));
+        }
+
+        private static long toCents(BigDecimal amount) {
+            return amount != null ? amount.movePointRight(2).longValue() : 0;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.diya.service;
+
+import com.diya.dto.response.FacetSearchResponse;
+import com.diya.dto.response.PagedResponse;
+import com.diya.dto.response.ProductResponse;
+import com.diya.exception.BadRequestException;
+import com.diya.exception.ResourceNotFoundException;
+import com.diya.mapper.ProductMapper;
+import com.diya.model.Product;
+import com.diya.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ProductFacetService {
+
+    private final ProductFacetIndex productFacetIndex;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+
+    // Attribute filters are "key:value"; values of the same key are ORed, different keys ANDed
+    public FacetSearchResponse search(List<String> attributeFilters, Long categoryId, boolean includeSubcategories,
+                                      BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly,
+                                      int page, int size) {
+        ProductFacetIndex.Query query = new ProductFacetIndex.Query(
+                categoryId != null ? categoryIds(categoryId, includeSubcategories) : null,
+                parseAttributes(attributeFilters),
+                minPrice,
+                maxPrice,
+                inStockOnly);
+        ProductFacetIndex.Result result = productFacetIndex.search(query, page, size);
+
+        Map<Long, Product> products = productRepository.findAllById(result.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductResponse> content = result.productIds().stream()
+                .map(products::get)
+                // A product deleted since it was indexed is skipped until the index catches up
+                .filter(Objects::nonNull)
+                .map(productMapper::toProductResponse)
+                .collect(Collectors.toList());
+
+        int totalPages = size > 0 ? (int) Math.ceil((double) result.total() / size) : 0;
+        return FacetSearchResponse.builder()
+                .products(new PagedResponse<>(content, page, size, result.total(), totalPages, page >= totalPages - 1))
+                .attributes(result.attributeFacets())
+                .categories(result.categoryFacets())
+                .inStock(result.inStockCount())
+                .build();
+    }
+
+    private Set<Long> categoryIds(Long categoryId, boolean includeSubcategories) {
+        CategoryTree tree = categoryTreeService.getTree();
+        if (tree.findById(categoryId).isEmpty()) {
+            throw new ResourceNotFoundException("Category not found with id: " + categoryId);
+        }
+        return includeSubcategories ? tree.getSubtreeIds(categoryId) : Set.of(categoryId);
+    }
+
+    private Map<String, Set<String>> parseAttributes(List<String> attributeFilters) {
+        Map<String, Set<String>> attributes = new LinkedHashMap<>();
+        if (attributeFilters == null) {
+            return attributes;
+        }
+        for (String filter : attributeFilters) {
+            int separator = filter.indexOf(':');
+            if (separator <= 0 || separator == filter.length() - 1) {
+                throw new BadRequestException("Attribute filter must be in the form key:value, got: " + filter);
+            }
+            attributes.computeIfAbsent(filter.substring(0, separator), key -> new LinkedHashSet<>())
+                    .add(filter.substring(separator + 1));
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,236 @@
+package com.diya.service;
+
+import com.diya.model.ProductImportJob;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads an import file one record at a time, so memory use does not depend on the file size.
+// CSV needs a header row; images are separated by "|" and attributes written as "key=value;key=value".
+// NDJSON has one JSON object per line, with images as an array and attributes as an object.
+public abstract class ProductImportReader implements Closeable {
+
+    protected final BufferedReader reader;
+    protected long rowNumber;
+
+    protected ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    public static ProductImportReader open(Path file, ProductImportJob.Format format, ObjectMapper objectMapper)
+            throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        return format == ProductImportJob.Format.CSV ? new CsvReader(reader) : new NdjsonReader(reader, objectMapper);
+    }
+
+    // The next record, or null at the end of the file
+    public abstract ProductImportRow next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    protected static List<String> splitImages(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(value.split("\\|"))
+                .map(String::trim)
+                .filter(image -> !image.isEmpty())
+                .toList();
+    }
+
+    protected static Map<String, String> splitAttributes(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (String pair : value.split(";")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                attributes.put(pair.substring(0, separator).trim(), pair.substring(separator + 1).trim());
+            }
+        }
+        return attributes;
+    }
+
+    private static final class CsvReader extends ProductImportReader {
+
+        private Map<String, Integer> columns;
+
+        CsvReader(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        public ProductImportRow next() throws IOException {
+            if (columns == null) {
+                List<String> header = readRecord();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+                }
+            }
+
+            List<String> values;
+            try {
+                do {
+                    values = readRecord();
+                } while (values != null && values.size() == 1 && values.get(0).isBlank());
+            } catch (IllegalStateException e) {
+                return ProductImportRow.malformed(++rowNumber, e.getMessage());
+            }
+            if (values == null) {
+                return null;
+            }
+            rowNumber++;
+            return new ProductImportRow(rowNumber,
+                    value(values, "sku"), value(values, "slug"), value(values, "name"), value(values, "description"),
+                    value(values, "price"), value(values, "discountprice"), value(values, "stock"),
+                    value(values, "categoryid"), value(values, "categoryslug"),
+                    splitImages(value(values, "images")), splitAttributes(value(values, "attributes")),
+                    value(values, "active"), value(values, "featured"), null);
+        }
+
+        private String value(List<String> values, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= values.size()) {
+                return null;
+            }
+            String value = values.get(index);
+            return value.isEmpty() ? null : value;
+        }
+
+        // One RFC 4180 record; quoted fields may contain commas, doubled quotes and line breaks
+        private List<String> readRecord() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (following != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (ch == '\n') {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (ch != '\r') {
+                    field.append(ch);
+                }
+            }
+            if (quoted) {
+                throw new IllegalStateException("Unterminated quoted field at end of file");
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    private static final class NdjsonReader extends ProductImportReader {
+
+        private final ObjectMapper objectMapper;
+
+        NdjsonReader(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ProductImportRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                rowNumber++;
+            } while (line.isBlank());
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                return ProductImportRow.malformed(rowNumber, "Malformed JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return ProductImportRow.malformed(rowNumber, "Expected a JSON object");
+            }
+            return new ProductImportRow(rowNumber,
+                    text(node, "sku"), text(node, "slug"), text(node, "name"), text(node, "description"),
+                    text(node, "price"), text(node, "discountPrice"), text(node, "stock"),
+                    text(node, "categoryId"), text(node, "categorySlug"),
+                    images(node.get("images")), attributes(node.get("attributes")),
+                    text(node, "active"), text(node, "featured"), null);
+        }
+
+        private String text(JsonNode node, String field) {
+            JsonNode value = node.get(field);
+            return value == null || value.isNull() ? null : value.asText();
+        }
+
+        private List<String> images(JsonNode node) {
+            if (node == null || node.isNull()) {
+                return null;
+            }
+            if (node.isTextual()) {
+                return splitImages(node.asText());
+            }
+            List<String> images = new ArrayList<>();
+            node.forEach(image -> images.add(image.asText()));
+            return images;
+        }
+
+        private Map<String, String> attributes(JsonNode node) {
+            if (node == null || node.isNull()) {
+                return null;
+            }
+            if (node.isTextual()) {
+                return splitAttributes(node.asText());
+            }
+            Map<String, String> attributes = new LinkedHashMap<>();
+            node.fields().forEachRemaining(entry -> attributes.put(entry.getKey(), entry.getValue().asText()));
+            return attributes;
+        }
+    }
+}
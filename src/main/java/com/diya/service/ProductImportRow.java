@@ -0,0 +1,18 @@
+package com.diya.service;
+
+import java.util.List;
+import java.util.Map;
+
+// One record of a bulk import file as read, before validation. Scalars stay strings so that a bad
+// value is reported against its row instead of failing the whole file. images and attributes are
+// null when the file does not provide them, which leaves an existing product's values untouched.
+public record ProductImportRow(long rowNumber, String sku, String slug, String name, String description,
+                               String price, String discountPrice, String stock, String categoryId,
+                               String categorySlug, List<String> images, Map<String, String> attributes,
+                               String active, String featured, String parseError) {
+
+    static ProductImportRow malformed(long rowNumber, String parseError) {
+        return new ProductImportRow(rowNumber, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, parseError);
+    }
+}
@@ -0,0 +1,521 @@
+package com.diya.service;
+
+import com.diya.dto.response.PagedResponse;
+import com.diya.dto.response.ProductImportErrorResponse;
+import com.diya.dto.response.ProductImportJobResponse;
+import com.diya.exception.BadRequestException;
+import com.diya.exception.ResourceNotFoundException;
+import com.diya.mapper.ProductMapper;
+import com.diya.model.Product;
+import com.diya.model.ProductImportError;
+import com.diya.model.ProductImportJob;
+import com.diya.repository.ProductImportErrorRepository;
+import com.diya.repository.ProductImportJobRepository;
+import com.diya.repository.ProductImportRepository;
+import com.diya.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Imports products from an uploaded CSV or NDJSON file in the background. The file is spooled to
+// disk and read a row at a time; each chunk of rows is upserted with one JDBC batch and committed
+// together with the job's checkpoint. A chunk may be replayed after a crash, which the upsert by
+// slug makes harmless. Set app.import.directory to shared storage when running several instances.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    private final ProductImportJobRepository productImportJobRepository;
+    private final ProductImportErrorRepository productImportErrorRepository;
+    private final ProductImportRepository productImportRepository;
+    private final ProductRepository productRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ProductResponseCache productResponseCache;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductTypeaheadIndex productTypeaheadIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Optional<InMemoryStockLedger> stockLedger;
+
+    // Jobs queued or running on this node, so a poll does not submit them twice
+    private final Set<Long> scheduled = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.import.directory:${java.io.tmpdir}/diya-imports}")
+    private String directory;
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.workers:2}")
+    private int workers;
+
+    @Value("${app.import.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.import.retry-delay-seconds:60}")
+    private long retryDelaySeconds;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers * 4);
+        executor.setThreadNamePrefix("product-import-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs stay RUNNING and are resumed from their checkpoint once the lease lapses
+        executor.shutdown();
+    }
+
+    public ProductImportJobResponse createJob(MultipartFile file, String format, String username) {
+        if (file.isEmpty()) {
+            throw new BadRequestException("Import file is empty");
+        }
+        ProductImportJob.Format jobFormat = resolveFormat(format, file.getOriginalFilename());
+        Path target = spool(file, jobFormat);
+
+        ProductImportJob job;
+        try {
+            job = productImportJobRepository.save(ProductImportJob.builder()
+                    .filename(file.getOriginalFilename() != null ? file.getOriginalFilename() : target.getFileName().toString())
+                    .format(jobFormat)
+                    .filePath(target.toString())
+                    .status(ProductImportJob.Status.PENDING)
+                    .createdBy(username)
+                    .build());
+        } catch (RuntimeException e) {
+            deleteQuietly(target);
+            throw e;
+        }
+
+        schedule(job.getId());
+        return toJobResponse(job);
+    }
+
+    public ProductImportJobResponse getJob(Long jobId) {
+        return toJobResponse(findJobById(jobId));
+    }
+
+    public PagedResponse<ProductImportErrorResponse> getErrors(Long jobId, Pageable pageable) {
+        findJobById(jobId);
+        Page<ProductImportError> errors = productImportErrorRepository.findByJobIdOrderByRowNumber(jobId, pageable);
+        List<ProductImportErrorResponse> content = errors.getContent()
+                .stream()
+                .map(error -> ProductImportErrorResponse.builder()
+                        .rowNumber(error.getRowNumber())
+                        .sku(error.getSku())
+                        .message(error.getMessage())
+                        .build())
+                .collect(Collectors.toList());
+
+        return new PagedResponse<>(
+                content,
+                errors.getNumber(),
+                errors.getSize(),
+                errors.getTotalElements(),
+                errors.getTotalPages(),
+                errors.isLast()
+        );
+    }
+
+    // Picks up pending jobs the pool had no room for, and running jobs whose owner stopped renewing the lease
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.import.poll-interval-ms:30000}",
+               fixedDelayString = "${app.import.poll-interval-ms:30000}")
+    public void resumeJobs() {
+        productImportJobRepository.findClaimableIds(LocalDateTime.now()).forEach(this::schedule);
+    }
+
+    private void schedule(Long jobId) {
+        if (!scheduled.add(jobId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    scheduled.remove(jobId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            scheduled.remove(jobId);
+            log.debug("Import pool is busy, job {} is left for the next poll", jobId);
+        }
+    }
+
+    private void run(Long jobId) {
+        ProductImportJob job = productImportJobRepository.findById(jobId).orElse(null);
+        // The spooled file may live on another instance's disk
+        if (job == null || !Files.exists(Path.of(job.getFilePath()))) {
+            return;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (productImportJobRepository.claim(jobId, claimToken, now.plusSeconds(leaseSeconds), now) == 0) {
+            return;
+        }
+        // Re-read after claiming: a previous owner may have advanced the checkpoint in between
+        job = productImportJobRepository.findById(jobId).orElseThrow();
+        Path file = Path.of(job.getFilePath());
+        log.info("Starting product import {} ({}) from row {}", jobId, job.getFilename(), job.getRowsProcessed() + 1);
+
+        ProductImportJob.Status status;
+        String errorMessage = null;
+        try (ProductImportReader reader = ProductImportReader.open(file, job.getFormat(), objectMapper)) {
+            long processed = 0;
+            while (processed < job.getRowsProcessed() && reader.next() != null) {
+                processed++;
+            }
+
+            List<ProductImportRow> chunk = new ArrayList<>(batchSize);
+            ProductImportRow row;
+            while ((row = reader.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == batchSize) {
+                    processed += chunk.size();
+                    processChunk(jobId, claimToken, chunk, processed);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processed += chunk.size();
+                processChunk(jobId, claimToken, chunk, processed);
+            }
+            status = ProductImportJob.Status.COMPLETED;
+        } catch (ClaimLostException e) {
+            log.warn("Product import {} was taken over by another instance", jobId);
+            return;
+        } catch (DataAccessException | TransactionException e) {
+            // The database is unavailable or rejected the checkpoint: keep the file and the checkpoint,
+            // and let a later poll resume the job once the retry delay has passed
+            log.warn("Product import {} interrupted by a database error, will resume: {}", jobId, e.getMessage());
+            releaseForRetry(jobId, claimToken);
+            return;
+        } catch (Exception e) {
+            log.error("Product import {} failed", jobId, e);
+            status = ProductImportJob.Status.FAILED;
+            errorMessage = truncate(e.getMessage());
+        }
+
+        productImportJobRepository.finish(jobId, claimToken, status, errorMessage, LocalDateTime.now());
+        deleteQuietly(file);
+        productTypeaheadIndex.rebuild();
+        log.info("Finished product import {} with status {}", jobId, status);
+    }
+
+    private void releaseForRetry(Long jobId, String claimToken) {
+        try {
+            productImportJobRepository.release(jobId, claimToken, LocalDateTime.now().plusSeconds(retryDelaySeconds));
+        } catch (DataAccessException | TransactionException e) {
+            // The lease still lapses on its own after lease-seconds
+            log.debug("Could not release product import {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private void processChunk(Long jobId, String claimToken, List<ProductImportRow> rows, long processed) {
+        CategoryTree tree = categoryTreeService.getTree();
+        Set<String> skusWithoutSlug = rows.stream()
+                .filter(row -> row.slug() == null && row.sku() != null)
+                .map(row -> row.sku().trim())
+                .collect(Collectors.toSet());
+        Map<String, String> existingSlugs = productImportRepository.findSlugsBySku(skusWithoutSlug);
+
+        List<ProductImportError> errors = new ArrayList<>();
+        // One row per slug: with batched inserts rewritten into a single statement, Postgres rejects
+        // an upsert that touches the same row twice
+        Map<String, Candidate> candidates = new LinkedHashMap<>();
+        for (ProductImportRow row : rows) {
+            try {
+                Candidate candidate = validate(row, tree, existingSlugs);
+                Candidate replaced = candidates.remove(candidate.row().slug());
+                if (replaced != null) {
+                    errors.add(error(jobId, replaced.source(), "Slug '" + candidate.row().slug() +
+                            "' appears again at row " + row.rowNumber() + ", which replaces this row"));
+                }
+                candidates.put(candidate.row().slug(), candidate);
+            } catch (IllegalArgumentException e) {
+                errors.add(error(jobId, row, e.getMessage()));
+            }
+        }
+
+        List<Candidate> valid = new ArrayList<>(candidates.values());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                write(valid);
+                checkpoint(jobId, claimToken, processed, valid.size(), errors);
+            });
+        } catch (TransientDataAccessException | RecoverableDataAccessException e) {
+            // Not caused by the rows: resume the job later instead of recording every row as failed
+            throw e;
+        } catch (DataAccessException e) {
+            // A single bad row fails the whole batch, so retry the rows one at a time to isolate it
+            log.warn("Batch upsert failed for product import {}, retrying row by row: {}", jobId, e.getMessage());
+            int imported = 0;
+            for (Candidate candidate : valid) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write(List.of(candidate)));
+                    imported++;
+                } catch (DataAccessException rowFailure) {
+                    errors.add(error(jobId, candidate.source(), "Could not be saved: " +
+                            rowFailure.getMostSpecificCause().getMessage()));
+                }
+            }
+            int rowsImported = imported;
+            transactionTemplate.executeWithoutResult(status ->
+                    checkpoint(jobId, claimToken, processed, rowsImported, errors));
+        }
+    }
+
+    private void write(List<Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            return;
+        }
+        productImportRepository.upsert(candidates.stream().map(Candidate::row).toList(), stockLedger.isPresent());
+        Map<String, Long> ids = productImportRepository.findIdsBySlug(
+                candidates.stream().map(candidate -> candidate.row().slug()).toList());
+
+        // Images and attributes go through JPA, which owns the element collection mapping
+        List<Candidate> withCollections = candidates.stream()
+                .filter(candidate -> candidate.images() != null || candidate.attributes() != null)
+                .toList();
+        if (!withCollections.isEmpty()) {
+            Map<Long, Product> products = productRepository.findAllById(withCollections.stream()
+                            .map(candidate -> ids.get(candidate.row().slug()))
+                            .toList())
+                    .stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            for (Candidate candidate : withCollections) {
+                Product product = products.get(ids.get(candidate.row().slug()));
+                if (candidate.images() != null) {
+                    product.setImages(new ArrayList<>(candidate.images()));
+                }
+                if (candidate.attributes() != null) {
+                    Set<Product.ProductAttribute> attributes = new HashSet<>();
+                    candidate.attributes().forEach((key, value) -> attributes.add(new Product.ProductAttribute(key, value)));
+                    product.setAttributes(attributes);
+                }
+            }
+        }
+
+        productResponseCache.evict(ids.values());
+        productFacetIndex.markDirty(ids.values());
+    }
+
+    private void checkpoint(Long jobId, String claimToken, long processed, int imported, List<ProductImportError> errors) {
+        productImportRepository.insertErrors(errors);
+        LocalDateTime lockedUntil = LocalDateTime.now().plusSeconds(leaseSeconds);
+        if (productImportJobRepository.checkpoint(jobId, claimToken, processed, imported, errors.size(), lockedUntil) == 0) {
+            throw new ClaimLostException();
+        }
+    }
+
+    private Candidate validate(ProductImportRow row, CategoryTree tree, Map<String, String> existingSlugs) {
+        if (row.parseError() != null) {
+            throw new IllegalArgumentException(row.parseError());
+        }
+        String sku = required(row.sku(), "sku");
+        String name = required(row.name(), "name");
+
+        BigDecimal price = decimal(required(row.price(), "price"), "price");
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException("price must be greater than or equal to 0");
+        }
+        BigDecimal discountPrice = row.discountPrice() != null ? decimal(row.discountPrice(), "discountPrice") : null;
+
+        int stock;
+        try {
+            stock = Integer.parseInt(required(row.stock(), "stock"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("stock is not a whole number: " + row.stock());
+        }
+        if (stock < 0) {
+            throw new IllegalArgumentException("stock must be greater than or equal to 0");
+        }
+
+        CategoryTree.Node category;
+        if (row.categoryId() != null) {
+            long categoryId;
+            try {
+                categoryId = Long.parseLong(row.categoryId().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("categoryId is not a number: " + row.categoryId());
+            }
+            category = tree.findById(categoryId)
+                    .orElseThrow(() -> new IllegalArgumentException("Category not found with id: " + categoryId));
+        } else if (row.categorySlug() != null) {
+            category = tree.findBySlug(row.categorySlug().trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Category not found with slug: " + row.categorySlug()));
+        } else {
+            throw new IllegalArgumentException("categoryId or categorySlug is required");
+        }
+
+        String slug = row.slug() != null ? row.slug().trim() : existingSlugs.get(sku);
+        if (slug == null) {
+            slug = ProductMapper.slugify(name);
+        }
+        if (slug.isEmpty()) {
+            throw new IllegalArgumentException("slug is required when the name has no letters or digits");
+        }
+        if (name.length() > 255 || sku.length() > 255 || slug.length() > 255) {
+            throw new IllegalArgumentException("name, sku and slug must be at most 255 characters");
+        }
+
+        ProductImportRepository.Row product = new ProductImportRepository.Row(name, slug, row.description(),
+                price, discountPrice, stock, sku, category.id(),
+                bool(row.active(), true, "active"), bool(row.featured(), false, "featured"));
+        return new Candidate(row, product, row.images(), row.attributes());
+    }
+
+    private String required(String value, String field) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        return value.trim();
+    }
+
+    private BigDecimal decimal(String value, String field) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + " is not a number: " + value);
+        }
+    }
+
+    private boolean bool(String value, boolean defaultValue, String field) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes" -> true;
+            case "false", "0", "no" -> false;
+            default -> throw new IllegalArgumentException(field + " must be true or false: " + value);
+        };
+    }
+
+    private ProductImportError error(Long jobId, ProductImportRow row, String message) {
+        return ProductImportError.builder()
+                .jobId(jobId)
+                .rowNumber(row.rowNumber())
+                .sku(row.sku() != null && row.sku().length() <= 255 ? row.sku() : null)
+                .message(truncate(message))
+                .build();
+    }
+
+    private ProductImportJob.Format resolveFormat(String format, String filename) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return ProductImportJob.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unsupported import format: " + format);
+            }
+        }
+        String name = filename != null ? filename.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv")) {
+            return ProductImportJob.Format.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return ProductImportJob.Format.NDJSON;
+        }
+        throw new BadRequestException("Cannot tell the import format from the file name, pass format=CSV or format=NDJSON");
+    }
+
+    private Path spool(MultipartFile file, ProductImportJob.Format format) {
+        try {
+            Path dir = Path.of(directory);
+            Files.createDirectories(dir);
+            Path target = dir.resolve(UUID.randomUUID() + (format == ProductImportJob.Format.CSV ? ".csv" : ".ndjson"));
+            file.transferTo(target);
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store the import file", e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private ProductImportJob findJobById(Long jobId) {
+        return productImportJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product import job not found with id: " + jobId));
+    }
+
+    private ProductImportJobResponse toJobResponse(ProductImportJob job) {
+        return ProductImportJobResponse.builder()
+                .id(job.getId())
+                .filename(job.getFilename())
+                .format(job.getFormat().name())
+                .status(job.getStatus().name())
+                .rowsProcessed(job.getRowsProcessed())
+                .rowsImported(job.getRowsImported())
+                .rowsFailed(job.getRowsFailed())
+                .errorMessage(job.getErrorMessage())
+                .createdBy(job.getCreatedBy())
+                .createdAt(job.getCreatedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private record Candidate(ProductImportRow source, ProductImportRepository.Row row,
+                             List<String> images, Map<String, String> attributes) {
+    }
+
+    private static class ClaimLostException extends RuntimeException {
+    }
+}
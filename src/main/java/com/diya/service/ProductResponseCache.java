@@ -0,0 +1,171 @@
+package com.diya.service;
+
+import com.diya.dto.response.ProductResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Size-bounded LRU cache of mapped product detail responses, addressable by id and by slug.
+// Responses are mutable DTOs, so entries are copied on the way in and on the way out.
+@Component
+@RequiredArgsConstructor
+public class ProductResponseCache {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Long> idsBySlug = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Value("${app.cache.product.max-size:10000}")
+    private int maxSize;
+
+    private Map<Long, ProductResponse> entries;
+
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ProductResponse> eldest) {
+                if (size() > maxSize) {
+                    idsBySlug.remove(eldest.getValue().getSlug(), eldest.getKey());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("product.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("product.cache.evictions", evictions, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("product.cache.size", this, ProductResponseCache::size)
+                .register(meterRegistry);
+    }
+
+    public Optional<ProductResponse> getById(Long id) {
+        ProductResponse response;
+        lock.lock();
+        try {
+            response = entries.get(id);
+        } finally {
+            lock.unlock();
+        }
+
+        (response != null ? hits : misses).incrementAndGet();
+        return Optional.ofNullable(response).map(ProductResponseCache::copy);
+    }
+
+    public Optional<ProductResponse> getBySlug(String slug) {
+        Long id = idsBySlug.get(slug);
+        if (id == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        return getById(id);
+    }
+
+    // Taken before loading from the database; a load that raced with an invalidation is not cached
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public void put(ProductResponse response, long stamp) {
+        lock.lock();
+        try {
+            if (invalidations.get() != stamp) {
+                return;
+            }
+            entries.put(response.getId(), copy(response));
+            idsBySlug.put(response.getSlug(), response.getId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(Long id) {
+        evict(List.of(id));
+    }
+
+    // Evicts immediately and again once the surrounding transaction commits, so a reader cannot
+    // re-cache the pre-commit state in between
+    public void evict(Collection<Long> ids) {
+        doEvict(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(ids);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            entries.clear();
+            idsBySlug.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void doEvict(Collection<Long> ids) {
+        lock.lock();
+        try {
+            invalidations.incrementAndGet();
+            for (Long id : ids) {
+                ProductResponse removed = entries.remove(id);
+                if (removed != null) {
+                    idsBySlug.remove(removed.getSlug(), id);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ProductResponse copy(ProductResponse response) {
+        return response.toBuilder()
+                .category(response.getCategory() != null ? response.getCategory().toBuilder().build() : null)
+                .images(response.getImages() != null ? new ArrayList<>(response.getImages()) : null)
+                .attributes(response.getAttributes() != null ? new HashMap<>(response.getAttributes()) : null)
+                .build();
+    }
+
+    private int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
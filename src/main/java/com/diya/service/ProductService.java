@@ -1,8 +1,11 @@
 
 package com.diya.service;
 import com.diya.dto.request.ProductRequest;
+import com.diya.dto.response.AutocompleteSuggestionResponse;
+import com.diya.dto.response.CursorPagedResponse;
 import com.diya.dto.response.PagedResponse;
 import com.diya.dto.response.ProductResponse;
+import com.diya.exception.BadRequestException;
 import com.diya.exception.ResourceNotFoundException;
 import com.diya.mapper.ProductMapper;
 import com.diya.model.Category;
@@ -12,10 +15,14 @@ import com.diya.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,28 +32,53 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
+    private final ProductResponseCache productResponseCache;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductTypeaheadIndex productTypeaheadIndex;
+    private final KeysetPaginationService keysetPaginationService;
+    private final Optional<InMemoryStockLedger> stockLedger;
 
     public PagedResponse<ProductResponse> getAllProducts(Pageable pageable) {
         Page<Product> products = productRepository.findAll(pageable);
         return createPagedResponse(products);
     }
 
+    public CursorPagedResponse<ProductResponse> scrollProducts(String cursor, int size, String sortBy,
+                                                              Sort.Direction direction, String total) {
+        if (!List.of("id", "createdAt").contains(sortBy)) {
+            throw new BadRequestException("Cursor paging supports sorting by id or createdAt only");
+        }
+        return keysetPaginationService.scroll(Product.class, "products", null, sortBy, direction,
+                cursor, size, total, productMapper::toProductResponse);
+    }
+
     public ProductResponse getProductById(Long id) {
-        Product product = findProductById(id);
-        return productMapper.toProductResponse(product);
+        return productResponseCache.getById(id).orElseGet(() -> {
+            long stamp = productResponseCache.stamp();
+            ProductResponse response = productMapper.toProductResponse(findProductById(id));
+            productResponseCache.put(response, stamp);
+            return response;
+        });
     }
 
     public ProductResponse getProductBySlug(String slug) {
-        Product product = productRepository.findBySlug(slug)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with slug: " + slug));
-        return productMapper.toProductResponse(product);
+        return productResponseCache.getBySlug(slug).orElseGet(() -> {
+            long stamp = productResponseCache.stamp();
+            Product product = productRepository.findBySlug(slug)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with slug: " + slug));
+            ProductResponse response = productMapper.toProductResponse(product);
+            productResponseCache.put(response, stamp);
+            return response;
+        });
     }
 
-    public PagedResponse<ProductResponse> getProductsByCategory(Long categoryId, Pageable pageable) {
+    public PagedResponse<ProductResponse> getProductsByCategory(Long categoryId, boolean includeSubcategories, Pageable pageable) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
         
-        Page<Product> products = productRepository.findByCategory(category, pageable);
+        Page<Product> products = includeSubcategories && category.getPath() != null
+                ? productRepository.findByCategoryPathPrefix(category.getPath(), pageable)
+                : productRepository.findByCategory(category, pageable);
         return createPagedResponse(products);
     }
 
@@ -55,6 +87,10 @@ public class ProductService {
         return createPagedResponse(products);
     }
 
+    public List<AutocompleteSuggestionResponse> autocomplete(String query, int limit) {
+        return productTypeaheadIndex.suggest(query, limit);
+    }
+
     public List<ProductResponse> getFeaturedProducts(int limit) {
         return productRepository.findAllFeaturedProducts(Pageable.ofSize(limit))
                 .stream()
@@ -70,6 +106,9 @@ public class ProductService {
         Product product = productMapper.toProduct(productRequest);
         product.setCategory(category);
         Product savedProduct = productRepository.save(product);
+        productFacetIndex.markDirty(List.of(savedProduct.getId()));
+        productTypeaheadIndex.onProductChanged(savedProduct.getId(), savedProduct.getName(), savedProduct.getSku(),
+                savedProduct.getSlug(), savedProduct.isActive());
         
         return productMapper.toProductResponse(savedProduct);
     }
@@ -84,26 +123,67 @@ public class ProductService {
             existingProduct.setCategory(category);
         }
         
+        int currentStock = existingProduct.getStock();
         productMapper.updateProductFromRequest(productRequest, existingProduct);
+
+        if (stockLedger.isPresent()) {
+            // Stock is owned by the in-memory ledger, which is only touched once the update has committed
+            InMemoryStockLedger ledger = stockLedger.get();
+            int level = productRequest.getStock();
+            afterCommit(() -> ledger.set(id, level));
+            existingProduct.setStock(currentStock);
+        }
+
         Product updatedProduct = productRepository.save(existingProduct);
+        productResponseCache.evict(id);
+        productFacetIndex.markDirty(List.of(id));
+        productTypeaheadIndex.onProductChanged(id, updatedProduct.getName(), updatedProduct.getSku(),
+                updatedProduct.getSlug(), updatedProduct.isActive());
         
-        return productMapper.toProductResponse(updatedProduct);
+        ProductResponse response = productMapper.toProductResponse(updatedProduct);
+        if (stockLedger.isPresent()) {
+            response.setStock(productRequest.getStock());
+        }
+        return response;
     }
 
     @Transactional
     public void deleteProduct(Long id) {
         Product product = findProductById(id);
         productRepository.delete(product);
+        productResponseCache.evict(id);
+        productFacetIndex.markDirty(List.of(id));
+        productTypeaheadIndex.onProductDeleted(id);
     }
 
     @Transactional
     public ProductResponse updateProductStock(Long id, int quantity) {
         Product product = findProductById(id);
+        productResponseCache.evict(id);
+        productFacetIndex.markDirty(List.of(id));
+
+        if (stockLedger.isPresent()) {
+            InMemoryStockLedger ledger = stockLedger.get();
+            afterCommit(() -> ledger.adjust(id, quantity));
+            ProductResponse response = productMapper.toProductResponse(product);
+            response.setStock(ledger.getStock(id) + quantity);
+            return response;
+        }
+
         product.setStock(product.getStock() + quantity);
         Product updatedProduct = productRepository.save(product);
         return productMapper.toProductResponse(updatedProduct);
     }
 
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     private Product findProductById(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
@@ -0,0 +1,386 @@
+package com.diya.service;
+
+import com.diya.dto.response.AutocompleteSuggestionResponse;
+import com.diya.repository.ProductRepository;
+import com.diya.repository.ProductSalesRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Autocomplete over product names, SKUs and category names. Keys are normalized and kept in one
+// sorted array, so a prefix is a binary-searched range; names are also keyed from each later word,
+// so "pro" finds "iPhone 15 Pro". Results are ranked by units sold. The most popular products up to
+// max-products are indexed. A max segment tree over the keys' popularity ranks hands out a prefix
+// range best-first, so even a very wide range costs a few tree queries per result. Product writes
+// land in a small overlay that shadows the base until the next background rebuild folds them in.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductTypeaheadIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final String PRODUCT = "product";
+    private static final String CATEGORY = "category";
+
+    private static final int MAX_KEY_LENGTH = 64;
+    private static final int MAX_WORD_KEYS = 4;
+
+    private final ProductRepository productRepository;
+    private final ProductSalesRepository productSalesRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.typeahead.max-products:200000}")
+    private int maxProducts;
+
+    @Value("${app.typeahead.max-results:10}")
+    private int maxResults;
+
+    // Upper bound on base entries examined per query, in popularity order, when many are shadowed
+    @Value("${app.typeahead.max-scan:5000}")
+    private int maxScan;
+
+    @Value("${app.typeahead.max-overlay:1000}")
+    private int maxOverlay;
+
+    private final AtomicLong versions = new AtomicLong();
+    private final Map<Long, OverlayEntry> overlay = new ConcurrentHashMap<>();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public List<AutocompleteSuggestionResponse> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        int size = Math.max(1, Math.min(limit, maxResults));
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(BY_SCORE);
+        Set<Suggestion> seen = new HashSet<>();
+
+        // Ranges are split around their most popular key, so keys come out in popularity order
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(
+                Comparator.comparingInt((int[] range) -> current.keyRanks()[range[2]]).reversed());
+        pushRange(ranges, current, lowerBound(current.keys(), prefix), lowerBound(current.keys(), prefix + '\uffff'));
+        int accepted = 0;
+        for (int examined = 0; accepted < size && examined < maxScan && !ranges.isEmpty(); examined++) {
+            int[] range = ranges.poll();
+            int top = range[2];
+            if (offer(best, seen, current.suggestions()[current.targets()[top]], size)) {
+                accepted++;
+            }
+            pushRange(ranges, current, range[0], top);
+            pushRange(ranges, current, top + 1, range[1]);
+        }
+
+        for (OverlayEntry entry : overlay.values()) {
+            if (entry.suggestion() != null && entry.keys().stream().anyMatch(key -> key.startsWith(prefix))) {
+                offer(best, seen, entry.suggestion(), size);
+            }
+        }
+
+        List<Suggestion> ranked = new ArrayList<>(best);
+        ranked.sort(BY_SCORE.reversed());
+        return ranked.stream()
+                .map(suggestion -> AutocompleteSuggestionResponse.builder()
+                        .type(suggestion.type())
+                        .id(suggestion.id())
+                        .text(suggestion.text())
+                        .slug(suggestion.slug())
+                        .build())
+                .toList();
+    }
+
+    // Records a created or updated product once the surrounding transaction commits
+    public void onProductChanged(Long productId, String name, String sku, String slug, boolean active) {
+        afterCommit(() -> {
+            Suggestion suggestion = active
+                    ? new Suggestion(PRODUCT, productId, name, slug, snapshot.popularity().getOrDefault(productId, 0L))
+                    : null;
+            overlay.put(productId, new OverlayEntry(versions.incrementAndGet(), suggestion,
+                    suggestion != null ? productKeys(name, sku) : Set.of()));
+        });
+    }
+
+    public void onProductDeleted(Long productId) {
+        afterCommit(() -> overlay.put(productId, new OverlayEntry(versions.incrementAndGet(), null, Set.of())));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.typeahead.rebuild-interval-ms:900000}",
+               fixedDelayString = "${app.typeahead.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long version = versions.get();
+            CategoryTree tree = categoryTreeService.getTree();
+            Snapshot rebuilt = transactionTemplate.execute(status -> build(tree));
+            snapshot = rebuilt;
+            // Changes made after the rebuild started may be missing from it, so they stay in the overlay
+            overlay.values().removeIf(entry -> entry.version() <= version);
+            log.info("Rebuilt typeahead index with {} keys", rebuilt.keys().length);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Folds a large overlay or changed categories into the base without waiting for the next rebuild
+    @Scheduled(fixedDelayString = "${app.typeahead.check-interval-ms:10000}")
+    public void rebuildIfStale() {
+        CategoryTree indexed = snapshot.categoryTree();
+        if (overlay.size() > maxOverlay || indexed == null
+                || !indexed.getAll().equals(categoryTreeService.getTree().getAll())) {
+            rebuild();
+        }
+    }
+
+    private Snapshot build(CategoryTree tree) {
+        Map<Long, Long> popularity = new HashMap<>();
+        Map<Long, Long> categoryPopularity = new HashMap<>();
+        for (Object[] row : productSalesRepository.sumByProduct()) {
+            long quantity = ((Number) row[2]).longValue();
+            popularity.put(((Number) row[0]).longValue(), quantity);
+            if (row[1] != null) {
+                categoryPopularity.merge(((Number) row[1]).longValue(), quantity, Long::sum);
+            }
+        }
+
+        // Keeps only the max-products most popular products; the queue head is the least popular kept
+        PriorityQueue<Object[]> kept = new PriorityQueue<>(Comparator
+                .comparingLong((Object[] row) -> popularity.getOrDefault((Long) row[0], 0L))
+                .thenComparing(row -> (Long) row[0], Comparator.reverseOrder()));
+        try (Stream<Object[]> rows = productRepository.streamTypeaheadRows()) {
+            rows.forEach(row -> {
+                kept.add(row);
+                if (kept.size() > maxProducts) {
+                    kept.poll();
+                }
+            });
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Integer> targets = new ArrayList<>();
+        for (Object[] row : kept) {
+            Long id = (Long) row[0];
+            String name = (String) row[1];
+            addKeys(keys, targets, suggestions.size(), productKeys(name, (String) row[2]));
+            suggestions.add(new Suggestion(PRODUCT, id, name, (String) row[3], popularity.getOrDefault(id, 0L)));
+        }
+        for (CategoryTree.Node node : tree.getAll()) {
+            addKeys(keys, targets, suggestions.size(), nameKeys(node.name()));
+            suggestions.add(new Suggestion(CATEGORY, node.id(), node.name(), node.slug(),
+                    categoryPopularity.getOrDefault(node.id(), 0L)));
+        }
+
+        Integer[] order = new Integer[keys.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(keys::get));
+        String[] sortedKeys = new String[order.length];
+        int[] sortedTargets = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys.get(order[i]);
+            sortedTargets[i] = targets.get(order[i]);
+        }
+
+        Suggestion[] suggestionArray = suggestions.toArray(new Suggestion[0]);
+        Integer[] byScore = new Integer[suggestionArray.length];
+        for (int i = 0; i < byScore.length; i++) {
+            byScore[i] = i;
+        }
+        Arrays.sort(byScore, Comparator.comparing(index -> suggestionArray[index], BY_SCORE));
+        int[] suggestionRanks = new int[suggestionArray.length];
+        for (int rank = 0; rank < byScore.length; rank++) {
+            suggestionRanks[byScore[rank]] = rank;
+        }
+        int[] keyRanks = new int[sortedTargets.length];
+        for (int i = 0; i < keyRanks.length; i++) {
+            keyRanks[i] = suggestionRanks[sortedTargets[i]];
+        }
+
+        return new Snapshot(sortedKeys, sortedTargets, suggestionArray, keyRanks, buildRankTree(keyRanks),
+                popularity, tree);
+    }
+
+    // Bottom-up max segment tree: leaf n + i holds key i, every inner node the better-ranked key below it
+    private static int[] buildRankTree(int[] ranks) {
+        int n = ranks.length;
+        int[] rankTree = new int[2 * n];
+        for (int i = 0; i < n; i++) {
+            rankTree[n + i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            rankTree[i] = better(ranks, rankTree[2 * i], rankTree[2 * i + 1]);
+        }
+        return rankTree;
+    }
+
+    // Position of the best-ranked key in [from, to), or -1 for an empty range
+    private static int bestKey(Snapshot snapshot, int from, int to) {
+        int n = snapshot.keyRanks().length;
+        int best = -1;
+        for (int low = from + n, high = to + n; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                best = better(snapshot.keyRanks(), best, snapshot.rankTree()[low++]);
+            }
+            if ((high & 1) == 1) {
+                best = better(snapshot.keyRanks(), best, snapshot.rankTree()[--high]);
+            }
+        }
+        return best;
+    }
+
+    private static int better(int[] ranks, int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return ranks[b] > ranks[a] ? b : a;
+    }
+
+    private static void pushRange(PriorityQueue<int[]> ranges, Snapshot snapshot, int from, int to) {
+        if (from < to) {
+            ranges.add(new int[] {from, to, bestKey(snapshot, from, to)});
+        }
+    }
+
+    // Returns false when the suggestion is shadowed by the overlay or was already offered
+    private boolean offer(PriorityQueue<Suggestion> best, Set<Suggestion> seen, Suggestion suggestion, int size) {
+        OverlayEntry shadow = PRODUCT.equals(suggestion.type()) ? overlay.get(suggestion.id()) : null;
+        if (shadow != null && shadow.suggestion() != suggestion) {
+            // The base entry is out of date; the overlay has the current one (or none if deleted)
+            return false;
+        }
+        if (!seen.add(suggestion)) {
+            return false;
+        }
+        best.add(suggestion);
+        if (best.size() > size) {
+            best.poll();
+        }
+        return true;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void addKeys(List<String> keys, List<Integer> targets, int target, Set<String> newKeys) {
+        for (String key : newKeys) {
+            keys.add(key);
+            targets.add(target);
+        }
+    }
+
+    private static Set<String> productKeys(String name, String sku) {
+        Set<String> keys = nameKeys(name);
+        String normalizedSku = normalize(sku);
+        if (!normalizedSku.isEmpty()) {
+            keys.add(truncate(normalizedSku));
+        }
+        return keys;
+    }
+
+    // The whole name plus the name from each of its next few words
+    private static Set<String> nameKeys(String name) {
+        Set<String> keys = new LinkedHashSet<>();
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(truncate(normalized));
+        int start = normalized.indexOf(' ');
+        while (start >= 0 && keys.size() <= MAX_WORD_KEYS) {
+            keys.add(truncate(normalized.substring(start + 1)));
+            start = normalized.indexOf(' ', start + 1);
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        return SEPARATORS.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Ascending, so the head of a bounded queue is the weakest suggestion kept
+    private static final Comparator<Suggestion> BY_SCORE = Comparator
+            .comparingLong((Suggestion suggestion) -> suggestion.score())
+            .thenComparing(suggestion -> suggestion.text().length(), Comparator.reverseOrder())
+            .thenComparing(suggestion -> suggestion.id(), Comparator.reverseOrder());
+
+    private record Suggestion(String type, Long id, String text, String slug, long score) {
+    }
+
+    private record OverlayEntry(long version, Suggestion suggestion, Set<String> keys) {
+    }
+
+    // keyRanks holds each key's suggestion rank by BY_SCORE, higher is better; rankTree indexes it
+    private record Snapshot(String[] keys, int[] targets, Suggestion[] suggestions, int[] keyRanks, int[] rankTree,
+                            Map<Long, Long> popularity, CategoryTree categoryTree) {
+        static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new Suggestion[0], new int[0], new int[0],
+                Map.of(), null);
+    }
+}
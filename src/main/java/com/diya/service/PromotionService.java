@@ -182,6 +182,11 @@ public class PromotionService {
         promotionRepository.save(promotion);
     }
 
+    @Transactional
+    public int deactivateExpiredPromotions() {
+        return promotionRepository.deactivateExpiredPromotions(LocalDateTime.now());
+    }
+
     private Promotion findPromotionById(Long id) {
         return promotionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Promotion not found with id: " + id));
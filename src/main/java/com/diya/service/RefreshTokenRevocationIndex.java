@@ -0,0 +1,138 @@
+package com.diya.service;
+
+import com.diya.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Answers "can this refresh token possibly be valid?" without the database. A bloom filter holds
+// every live token hash at the last rebuild and an exact set holds hashes known to be revoked.
+// Only revoked tokens and tokens that were issued before the rebuild but are absent from the filter
+// are rejected here; everything else, including tokens issued since, is looked up as before.
+// Issues and revocations only reach this node's copy when they happen here; those from other nodes
+// show up at the next rebuild, and until then the database lookup still rejects revoked tokens.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenRevocationIndex {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    // Tokens committed while a rebuild was reading may be missing from it, so the filter is only
+    // trusted for tokens issued comfortably before the rebuild started
+    @Value("${app.security.refresh-filter.safety-margin-ms:60000}")
+    private long safetyMarginMs;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.security.refresh-filter.rebuild-interval-ms:3600000}",
+               fixedDelayString = "${app.security.refresh-filter.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        long trustedBefore = System.currentTimeMillis() - safetyMarginMs;
+        LocalDateTime now = LocalDateTime.now();
+
+        List<byte[]> live = refreshTokenRepository.findLiveTokenHashes(now);
+        BloomFilter filter = new BloomFilter(Math.max(live.size() * 2, 1024), FALSE_POSITIVE_RATE);
+        live.forEach(filter::add);
+
+        Set<String> revoked = ConcurrentHashMap.newKeySet();
+        refreshTokenRepository.findRevokedUnexpiredTokenHashes(now).forEach(hash -> revoked.add(key(hash)));
+
+        snapshot = new Snapshot(filter, revoked, trustedBefore);
+        log.info("Rebuilt refresh token index: {} live, {} revoked", live.size(), revoked.size());
+    }
+
+    // True when the token is certainly revoked or unknown; false means it has to be checked in the database
+    public boolean isDefinitelyInvalid(byte[] tokenHash, long issuedAtMillis) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return false;
+        }
+        if (current.revoked.contains(key(tokenHash))) {
+            return true;
+        }
+        return issuedAtMillis < current.trustedBefore && !current.filter.mightContain(tokenHash);
+    }
+
+    public void recordIssued(byte[] tokenHash) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.filter.add(tokenHash);
+        }
+    }
+
+    public void recordRevoked(byte[] tokenHash) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.revoked.add(key(tokenHash));
+        }
+    }
+
+    private static String key(byte[] tokenHash) {
+        return Base64.getEncoder().encodeToString(tokenHash);
+    }
+
+    private record Snapshot(BloomFilter filter, Set<String> revoked, long trustedBefore) {
+    }
+
+    // Bloom filter over SHA-256 hashes; the hash bytes are already uniform, so two 64-bit words of
+    // the hash drive double hashing instead of rehashing the input
+    static class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, m);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        }
+
+        void add(byte[] hash) {
+            ByteBuffer buffer = ByteBuffer.wrap(hash);
+            long h1 = buffer.getLong(0);
+            long h2 = buffer.getLong(8);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(byte[] hash) {
+            ByteBuffer buffer = ByteBuffer.wrap(hash);
+            long h1 = buffer.getLong(0);
+            long h2 = buffer.getLong(8);
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -1,4 +1,3 @@
-
 package com.diya.service;
 
 
@@ -7,61 +6,153 @@ import com.diya.model.RefreshToken;
 import com.diya.model.User;
 import com.diya.repository.RefreshTokenRepository;
 import com.diya.repository.UserRepository;
+import io.jsonwebtoken.io.Decoders;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_BYTES = 16;
+    private static final long CLOCK_SKEW_MS = 60_000;
+
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserRepository userRepository;
+    private final RefreshTokenRevocationIndex revocationIndex;
 
     @Value("${security.jwt.refresh-token.expiration-time}")
     private long refreshTokenDurationMs;
 
-    public RefreshToken createRefreshToken(String username) {
+    @Value("${security.jwt.secret-key}")
+    private String secretKey;
+
+    private SecretKeySpec macKey;
+
+    @PostConstruct
+    public void init() {
+        macKey = new SecretKeySpec(Decoders.BASE64.decode(secretKey), MAC_ALGORITHM);
+    }
+
+    // Returns the raw token for the client; only its hash is stored. The token is
+    // "<issuedAtMillis>.<secret>.<mac>": the revocation index needs the issue time to know whether its
+    // last rebuild could have seen the token, and the MAC stops a client from picking that time.
+    @Transactional
+    public String createRefreshToken(String username) {
         User user = userRepository.findByEmail(username)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + username));
 
+        byte[] secret = new byte[32];
+        RANDOM.nextBytes(secret);
+        String payload = System.currentTimeMillis() + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        String token = payload + "." + mac(payload);
+        byte[] tokenHash = hash(token);
+
         RefreshToken refreshToken = RefreshToken.builder()
                 .user(user)
-                .token(UUID.randomUUID().toString())
+                .tokenHash(tokenHash)
                 .expiryDate(LocalDateTime.now().plusSeconds(refreshTokenDurationMs / 1000))
                 .build();
 
-        return refreshTokenRepository.save(refreshToken);
+        refreshTokenRepository.save(refreshToken);
+        revocationIndex.recordIssued(tokenHash);
+        return token;
     }
 
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        byte[] tokenHash = hash(token);
+        long issuedAt = issuedAt(token);
+        if (issuedAt < 0 || revocationIndex.isDefinitelyInvalid(tokenHash, issuedAt)) {
+            return Optional.empty();
+        }
+        return refreshTokenRepository.findByTokenHash(tokenHash);
     }
 
     @Transactional
-    public RefreshToken verifyExpiration(RefreshToken token) {
+    public RefreshToken verifyExpiration(RefreshToken token, String rawToken) {
         if (token.isExpired()) {
+            revocationIndex.recordRevoked(token.getTokenHash());
             refreshTokenRepository.delete(token);
-            throw new TokenRefreshException(token.getToken(),
+            throw new TokenRefreshException(rawToken,
                 "Refresh token was expired. Please make a new signin request");
         }
         return token;
     }
 
+    // Other nodes learn about the revocation at their next index rebuild
+    // (app.security.refresh-filter.rebuild-interval-ms); until then they reject these tokens through
+    // the database row instead of in memory.
     @Transactional
     public void revokeAllUserTokens(User user) {
+        List<byte[]> revoked = refreshTokenRepository.findActiveTokenHashesByUser(user);
         refreshTokenRepository.revokeAllUserTokens(user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revoked.forEach(revocationIndex::recordRevoked);
+            }
+        });
     }
-    
-    @Scheduled(cron = "0 0 0 * * ?") // Runs at midnight every day
-    @Transactional
-    public void deleteExpiredTokens() {
-        refreshTokenRepository.deleteAllRevokedTokens();
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String mac(String payload) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            byte[] digest = mac.doFinal(("refresh-token:" + payload).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, MAC_BYTES));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    // The issue time vouched for by the token's MAC, or -1 when the MAC does not match or the time lies
+    // in the future: such a token was never issued here. Tokens without a MAC (plain UUIDs and the
+    // earlier "<issuedAt>.<secret>" form) predate the index rebuild done at startup and count as issued at 0.
+    private long issuedAt(String token) {
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        if (first <= 0 || first == last) {
+            return 0L;
+        }
+        byte[] expected = mac(token.substring(0, last)).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = token.substring(last + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return -1L;
+        }
+        try {
+            long issuedAt = Long.parseLong(token.substring(0, first));
+            return issuedAt <= System.currentTimeMillis() + CLOCK_SKEW_MS ? issuedAt : -1L;
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
     }
 }
@@ -0,0 +1,112 @@
+package com.diya.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Unit sales ranked in memory, overall, per day and per category. Top-N reads walk the head of a
+// sorted set, so their cost depends on N and not on the size of the order history.
+@Component
+public class SalesLeaderboard {
+
+    private volatile Rankings rankings = new Rankings();
+
+    public void add(Long productId, Long categoryId, LocalDate day, long quantity) {
+        Rankings current = rankings;
+        current.allTime.add(productId, quantity);
+        current.byDay.computeIfAbsent(day, key -> new Ranking()).add(productId, quantity);
+        if (categoryId != null) {
+            current.byCategory.computeIfAbsent(categoryId, key -> new Ranking()).add(productId, quantity);
+        }
+    }
+
+    public List<Entry> topAllTime(int limit) {
+        return rankings.allTime.top(limit);
+    }
+
+    public List<Entry> topForDay(LocalDate day, int limit) {
+        Ranking ranking = rankings.byDay.get(day);
+        return ranking != null ? ranking.top(limit) : List.of();
+    }
+
+    public List<Entry> topForCategory(Long categoryId, int limit) {
+        Ranking ranking = rankings.byCategory.get(categoryId);
+        return ranking != null ? ranking.top(limit) : List.of();
+    }
+
+    public Rankings newRankings() {
+        return new Rankings();
+    }
+
+    // Swaps in rankings rebuilt from the database in one step, so readers never see a partial rebuild
+    public void replace(Rankings rebuilt) {
+        rankings = rebuilt;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final Long productId;
+        private final long quantity;
+    }
+
+    public static class Rankings {
+        private final Ranking allTime = new Ranking();
+        private final Map<LocalDate, Ranking> byDay = new ConcurrentHashMap<>();
+        private final Map<Long, Ranking> byCategory = new ConcurrentHashMap<>();
+
+        public void addAllTime(Long productId, Long categoryId, long quantity) {
+            allTime.add(productId, quantity);
+            if (categoryId != null) {
+                byCategory.computeIfAbsent(categoryId, key -> new Ranking()).add(productId, quantity);
+            }
+        }
+
+        public void addDay(Long productId, LocalDate day, long quantity) {
+            byDay.computeIfAbsent(day, key -> new Ranking()).add(productId, quantity);
+        }
+    }
+
+    private static class Ranking {
+        private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::getQuantity).reversed()
+                .thenComparing(Entry::getProductId);
+
+        private final Map<Long, Long> totals = new HashMap<>();
+        private final ConcurrentSkipListSet<Entry> ranked = new ConcurrentSkipListSet<>(ORDER);
+
+        // Writers are serialised per ranking; readers iterate the skip list without locking
+        synchronized void add(Long productId, long delta) {
+            Long previous = totals.get(productId);
+            long updated = (previous != null ? previous : 0L) + delta;
+            if (previous != null) {
+                ranked.remove(new Entry(productId, previous));
+            }
+            if (updated > 0) {
+                totals.put(productId, updated);
+                ranked.add(new Entry(productId, updated));
+            } else {
+                totals.remove(productId);
+            }
+        }
+
+        List<Entry> top(int limit) {
+            List<Entry> top = new ArrayList<>(limit);
+            for (Entry entry : ranked) {
+                if (top.size() == limit) {
+                    break;
+                }
+                top.add(entry);
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.diya.service;
+
+import com.diya.repository.JobLockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+// Runs a maintenance job at most once across the cluster by taking a lease in job_locks first.
+// The lease is held for at least lockAtLeastFor, so nodes whose clocks or triggers are slightly
+// apart do not run the same occurrence twice, and expires after lockAtMostFor if the node dies.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledJobRunner {
+
+    private static final String NODE_ID = resolveNodeId();
+
+    private final JobLockRepository jobLockRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, JobMetrics> metrics = new ConcurrentHashMap<>();
+
+    // Returns false when another node holds the lease and the job was skipped
+    public boolean run(String name, Duration lockAtMostFor, Duration lockAtLeastFor, IntSupplier job) {
+        return run(name, lockAtMostFor, lockAtLeastFor, job, true);
+    }
+
+    // Jobs that fire every minute or so pass logCompletion = false and only report completion at debug
+    public boolean run(String name, Duration lockAtMostFor, Duration lockAtLeastFor, IntSupplier job,
+                       boolean logCompletion) {
+        LocalDateTime start = LocalDateTime.now();
+        String owner = NODE_ID + ":" + UUID.randomUUID();
+        if (jobLockRepository.tryAcquire(name, owner, start.plus(lockAtMostFor), start) == 0) {
+            log.debug("Skipping job {}: lease is held by another node", name);
+            return false;
+        }
+
+        JobMetrics jobMetrics = metrics.computeIfAbsent(name, this::registerMetrics);
+        long startNanos = System.nanoTime();
+        try {
+            int rows = job.getAsInt();
+            jobMetrics.lastRows.set(rows);
+            jobMetrics.runs.increment();
+            long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+            if (logCompletion) {
+                log.info("Job {} finished: {} rows in {} ms", name, rows, durationMs);
+            } else {
+                log.debug("Job {} finished: {} rows in {} ms", name, rows, durationMs);
+            }
+        } catch (RuntimeException e) {
+            jobMetrics.failures.increment();
+            log.error("Job {} failed", name, e);
+        } finally {
+            jobMetrics.lastDurationMs.set((System.nanoTime() - startNanos) / 1_000_000);
+            LocalDateTime earliestRelease = start.plus(lockAtLeastFor);
+            LocalDateTime now = LocalDateTime.now();
+            jobLockRepository.release(name, owner, now.isAfter(earliestRelease) ? now : earliestRelease);
+        }
+        return true;
+    }
+
+    private JobMetrics registerMetrics(String name) {
+        JobMetrics jobMetrics = new JobMetrics(
+                Counter.builder("scheduled.job.runs").tag("job", name).register(meterRegistry),
+                Counter.builder("scheduled.job.failures").tag("job", name).register(meterRegistry));
+        Gauge.builder("scheduled.job.last.duration.ms", jobMetrics.lastDurationMs, AtomicLong::get)
+                .tag("job", name)
+                .register(meterRegistry);
+        Gauge.builder("scheduled.job.last.rows", jobMetrics.lastRows, AtomicLong::get)
+                .tag("job", name)
+                .register(meterRegistry);
+        return jobMetrics;
+    }
+
+    private static String resolveNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private static class JobMetrics {
+        private final Counter runs;
+        private final Counter failures;
+        private final AtomicLong lastDurationMs = new AtomicLong();
+        private final AtomicLong lastRows = new AtomicLong();
+
+        JobMetrics(Counter runs, Counter failures) {
+            this.runs = runs;
+            this.failures = failures;
+        }
+    }
+}
@@ -1,47 +1,120 @@
 package com.diya.service;
 
 import com.diya.exception.InsufficientStockException;
+import com.diya.model.Cart;
 import com.diya.model.CartItem;
 import com.diya.model.Order;
 import com.diya.model.OrderItem;
 import com.diya.model.Product;
-import com.diya.repository.ProductRepository;
+import com.diya.repository.ProductStockRepository;
+import com.diya.repository.StockReservationRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class StockManagementService {
 
-    private final ProductRepository productRepository;
+    private final ProductStockRepository productStockRepository;
+    private final StockReservationRepository stockReservationRepository;
+    private final ProductResponseCache productResponseCache;
+    private final ProductFacetIndex productFacetIndex;
+    private final Optional<InMemoryStockLedger> stockLedger;
 
-    public void validateStock(List<CartItem> cartItems) {
-        for (CartItem cartItem : cartItems) {
+    @Transactional
+    public void reserveStockForCheckout(Cart cart) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        Map<Long, Product> products = new HashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
             Product product = cartItem.getProduct();
-            if (product.getStock() < cartItem.getQuantity()) {
-                throw new InsufficientStockException("Not enough stock available for product: " + product.getName());
-            }
+            quantities.merge(product.getId(), cartItem.getQuantity(), Integer::sum);
+            products.put(product.getId(), product);
         }
-    }
 
-    @Transactional
-    public void updateStockForCheckout(List<CartItem> cartItems) {
-        for (CartItem cartItem : cartItems) {
-            Product product = cartItem.getProduct();
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
+        List<Long> shortfalls = stockLedger.isPresent()
+                ? reserveInMemory(stockLedger.get(), cart.getId(), quantities)
+                : productStockRepository.decrementStock(cart.getId(), quantities);
+
+        if (!shortfalls.isEmpty()) {
+            // Throwing rolls back the decrements already applied by the batch
+            List<String> skus = shortfalls.stream()
+                    .map(id -> products.get(id).getSku())
+                    .collect(Collectors.toList());
+            throw new InsufficientStockException("Not enough stock available for products: " + String.join(", ", skus), skus);
         }
+
+        productResponseCache.evict(quantities.keySet());
+        productFacetIndex.markDirty(quantities.keySet());
     }
 
     @Transactional
     public void restoreStock(Order order) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
         for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+
+        productResponseCache.evict(quantities.keySet());
+        productFacetIndex.markDirty(quantities.keySet());
+
+        if (stockLedger.isPresent()) {
+            InMemoryStockLedger ledger = stockLedger.get();
+            afterCommit(() -> quantities.forEach(ledger::release));
+        } else {
+            productStockRepository.adjustStock(quantities);
         }
     }
+
+    private List<Long> reserveInMemory(InMemoryStockLedger ledger, Long cartId, SortedMap<Long, Integer> quantities) {
+        Map<Long, Long> heldByOthers = new HashMap<>();
+        stockReservationRepository.sumLiveReservationsByProductExcludingCart(quantities.keySet(), cartId, LocalDateTime.now())
+                .forEach(row -> heldByOthers.put((Long) row[0], (Long) row[1]));
+
+        List<Long> shortfalls = new ArrayList<>();
+        Map<Long, Integer> reserved = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            if (ledger.tryReserve(productId, quantity, heldByOthers.getOrDefault(productId, 0L))) {
+                reserved.put(productId, quantity);
+            } else {
+                shortfalls.add(productId);
+            }
+        });
+
+        if (!shortfalls.isEmpty()) {
+            reserved.forEach(ledger::release);
+        } else {
+            // The counters are not transactional, so give the stock back if the checkout does not commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reserved.forEach(ledger::release);
+                    }
+                }
+            });
+        }
+        return shortfalls;
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
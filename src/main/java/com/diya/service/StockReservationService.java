@@ -0,0 +1,76 @@
+package com.diya.service;
+
+import com.diya.exception.InsufficientStockException;
+import com.diya.model.Cart;
+import com.diya.model.Product;
+import com.diya.repository.ProductStockRepository;
+import com.diya.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final StockReservationRepository stockReservationRepository;
+    private final ProductStockRepository productStockRepository;
+    private final Optional<InMemoryStockLedger> stockLedger;
+
+    @Value("${app.cart.reservation.ttl-minutes:30}")
+    private long reservationTtlMinutes;
+
+    @Value("${app.cart.reservation.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    public int getAvailableStock(Product product, Cart cart) {
+        long reservedByOthers = stockReservationRepository.sumLiveReservationsExcludingCart(
+                product.getId(), cart.getId(), LocalDateTime.now());
+        int stock = stockLedger.map(ledger -> ledger.getStock(product.getId())).orElse(product.getStock());
+        return (int) Math.max(0, stock - reservedByOthers);
+    }
+
+    // Holds the full line quantity for the cart and restarts its TTL. Reservations of the same product
+    // are serialized on an advisory lock until the transaction ends, so two carts cannot both pass the
+    // check for the last units, while the product row itself stays free for checkout.
+    @Transactional
+    public void reserve(Cart cart, Product product, int quantity) {
+        productStockRepository.lockForReservation(product.getId());
+        LocalDateTime now = LocalDateTime.now();
+        long reservedByOthers = stockReservationRepository.sumLiveReservationsExcludingCart(
+                product.getId(), cart.getId(), now);
+        int stock = stockLedger.map(ledger -> ledger.getStock(product.getId()))
+                .orElseGet(() -> productStockRepository.currentStock(product.getId()));
+        if (stock - reservedByOthers < quantity) {
+            throw new InsufficientStockException("Not enough stock available for product: " + product.getName());
+        }
+
+        stockReservationRepository.upsertReservation(
+                cart.getId(), product.getId(), quantity, now.plusMinutes(reservationTtlMinutes), now);
+    }
+
+    @Transactional
+    public void release(Cart cart, Long productId) {
+        stockReservationRepository.deleteByCartIdAndProductId(cart.getId(), productId);
+    }
+
+    @Transactional
+    public void releaseAll(Cart cart) {
+        stockReservationRepository.deleteAllByCartId(cart.getId());
+    }
+
+    public int releaseExpiredReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = 0;
+        int batch;
+        do {
+            batch = stockReservationRepository.deleteExpiredBatch(now, sweepBatchSize);
+            released += batch;
+        } while (batch == sweepBatchSize);
+        return released;
+    }
+}
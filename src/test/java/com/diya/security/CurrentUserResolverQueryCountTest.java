@@ -0,0 +1,228 @@
+package com.diya.security;
+
+import com.diya.model.Address;
+import com.diya.model.Product;
+import com.diya.model.User;
+import com.diya.repository.AddressRepository;
+import com.diya.repository.ProductRepository;
+import com.diya.repository.UserRepository;
+import com.diya.service.AddressService;
+import com.diya.service.CartService;
+import com.diya.service.OrderManagementService;
+import com.diya.support.StatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Counts the statements that query the users table itself. Joins to it from other tables, such as an
+// address with its owner, are not user lookups and are left out.
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StatementCounter.Config.class)
+class CurrentUserResolverQueryCountTest {
+
+    private static final Pattern USERS_QUERY = Pattern.compile("\\bfrom\\s+users\\b", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private AddressService addressService;
+
+    @Autowired
+    private OrderManagementService orderManagementService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Address address;
+    private Product product;
+    private String token;
+
+    @BeforeEach
+    void createCustomer() {
+        String suffix = UUID.randomUUID().toString();
+        user = userRepository.save(User.builder()
+                .email("resolver-" + suffix + "@example.com")
+                .password("not-used")
+                .firstName("Query")
+                .lastName("Count")
+                .role(User.Role.CUSTOMER)
+                .enabled(true)
+                .build());
+        address = addressRepository.save(Address.builder()
+                .user(user)
+                .fullName("Query Count")
+                .addressLine1("1 Test Street")
+                .city("Kyiv")
+                .state("Kyiv")
+                .postalCode("01001")
+                .country("UA")
+                .type(Address.AddressType.BOTH)
+                .build());
+        product = productRepository.save(Product.builder()
+                .name("Resolver product " + suffix)
+                .slug("resolver-product-" + suffix)
+                .price(BigDecimal.TEN)
+                .stock(10)
+                .sku("RESOLVER-" + suffix)
+                .images(new ArrayList<>())
+                .attributes(new HashSet<>())
+                .active(true)
+                .build());
+        token = jwtTokenProvider.createAccessTokenFromUsername(user.getEmail());
+    }
+
+    @AfterEach
+    void deleteCustomer() {
+        Long userId = user.getId();
+        String userOrders = "SELECT id FROM orders WHERE user_id = ?";
+        String userCarts = "SELECT id FROM carts WHERE user_id = ?";
+        jdbcTemplate.update("DELETE FROM payments WHERE order_id IN (" + userOrders + ")", userId);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (" + userOrders + ")", userId);
+        jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM stock_reservations WHERE cart_id IN (" + userCarts + ")", userId);
+        jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (" + userCarts + ")", userId);
+        jdbcTemplate.update("DELETE FROM carts WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM addresses WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        jdbcTemplate.update("DELETE FROM product_sales WHERE product_id = ?", product.getId());
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", product.getId());
+    }
+
+    @Test
+    void cartQueriesUsersOnce() throws Exception {
+        assertThat(usersQueriesFor(authenticated(get("/api/v1/cart")))).isEqualTo(1);
+    }
+
+    @Test
+    void addressesQueryUsersOnce() throws Exception {
+        assertThat(usersQueriesFor(authenticated(get("/api/v1/addresses")))).isEqualTo(1);
+    }
+
+    @Test
+    void ordersQueryUsersOnce() throws Exception {
+        assertThat(usersQueriesFor(authenticated(get("/api/v1/orders")))).isEqualTo(1);
+    }
+
+    @Test
+    void addToCartQueriesUsersOnce() throws Exception {
+        assertThat(usersQueriesFor(addToCart())).isEqualTo(1);
+    }
+
+    @Test
+    void checkoutQueriesUsersOnce() throws Exception {
+        mockMvc.perform(addToCart()).andExpect(status().isOk());
+
+        long usersQueries = usersQueriesFor(authenticated(post("/api/v1/checkout"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"shippingAddressId\":" + address.getId()
+                        + ",\"paymentMethod\":\"CASH_ON_DELIVERY\",\"shippingMethod\":\"standard\"}"));
+
+        assertThat(usersQueries).isEqualTo(1);
+    }
+
+    // Several services resolving the user within one request share the first lookup. The request and
+    // its open session are reproduced here: request attributes, the token's principal and one transaction.
+    @Test
+    void servicesInOneRequestShareOneUsersQuery() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        JwtPrincipal principal = new JwtPrincipal(user.getId(), user.getEmail(),
+                List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, "", principal.getAuthorities()));
+        List<String> statements;
+        statementCounter.start();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                cartService.getCart(user.getEmail());
+                addressService.getUserAddresses(user.getEmail());
+                orderManagementService.getOrdersByUser(user.getEmail(), PageRequest.of(0, 10));
+            });
+        } finally {
+            statements = statementCounter.stop();
+            SecurityContextHolder.clearContext();
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        assertThat(usersQueries(statements)).isEqualTo(1);
+    }
+
+    private RequestBuilder addToCart() {
+        return authenticated(post("/api/v1/cart/items"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"productId\":" + product.getId() + ",\"quantity\":1}");
+    }
+
+    private long usersQueriesFor(RequestBuilder request) throws Exception {
+        List<String> statements;
+        statementCounter.start();
+        try {
+            mockMvc.perform(request).andExpect(status().isOk());
+        } finally {
+            statements = statementCounter.stop();
+        }
+        return usersQueries(statements);
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private static long usersQueries(List<String> statements) {
+        return StatementCounter.count(statements, sql -> USERS_QUERY.matcher(sql).find());
+    }
+}
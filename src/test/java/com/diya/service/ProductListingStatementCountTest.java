@@ -0,0 +1,130 @@
+package com.diya.service;
+
+import com.diya.model.Category;
+import com.diya.model.Product;
+import com.diya.repository.CategoryRepository;
+import com.diya.repository.ProductRepository;
+import com.diya.support.StatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Import(StatementCounter.Config.class)
+class ProductListingStatementCountTest {
+
+    private static final int PRODUCTS = 20;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductResponseCache productResponseCache;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Category category;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void createProducts() {
+        String suffix = UUID.randomUUID().toString();
+        category = categoryRepository.save(Category.builder()
+                .name("Listing " + suffix)
+                .slug("listing-" + suffix)
+                .children(new ArrayList<>())
+                .products(new ArrayList<>())
+                .build());
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(productRepository.save(Product.builder()
+                    .name("Listed product " + i)
+                    .slug("listed-product-" + i + "-" + suffix)
+                    .price(BigDecimal.TEN)
+                    .stock(10)
+                    .sku("LIST-" + i + "-" + suffix)
+                    .category(category)
+                    .images(new ArrayList<>(List.of("https://img.example/" + i + "-a.jpg", "https://img.example/" + i + "-b.jpg")))
+                    .attributes(new HashSet<>(Set.of(
+                            new Product.ProductAttribute("color", "red"),
+                            new Product.ProductAttribute("size", "M"))))
+                    .active(true)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void deleteProducts() {
+        productRepository.deleteAll(products);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void categoryListingStatementCountDoesNotGrowWithPageSize() {
+        long smallPage = statementsForCategoryPage(5);
+        long largePage = statementsForCategoryPage(PRODUCTS);
+
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void allProductsListingStatementCountDoesNotGrowWithPageSize() {
+        long smallPage = statementsForAllProductsPage(5);
+        long largePage = statementsForAllProductsPage(PRODUCTS);
+
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    private long statementsForCategoryPage(int size) {
+        return countStatements(() -> productService.getProductsByCategory(
+                category.getId(), false, PageRequest.of(0, size, Sort.by("id"))));
+    }
+
+    private long statementsForAllProductsPage(int size) {
+        return countStatements(() -> productService.getAllProducts(
+                PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "id"))));
+    }
+
+    // Listings are mapped inside the request's open session, so the call runs in one read-only transaction
+    // here. Only statements from this thread are counted, not those of the scheduled jobs.
+    private long countStatements(Runnable listing) {
+        productResponseCache.clear();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        List<String> statements;
+        statementCounter.start();
+        try {
+            transaction.executeWithoutResult(status -> listing.run());
+        } finally {
+            statements = statementCounter.stop();
+        }
+        return statements.size();
+    }
+}
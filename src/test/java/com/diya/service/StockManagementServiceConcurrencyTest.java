@@ -0,0 +1,123 @@
+package com.diya.service;
+
+import com.diya.exception.InsufficientStockException;
+import com.diya.model.Cart;
+import com.diya.model.CartItem;
+import com.diya.model.Product;
+import com.diya.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against the configured database, since the conditional decrement relies on its row locks
+@SpringBootTest
+class StockManagementServiceConcurrencyTest {
+
+    private static final int INITIAL_STOCK = 100;
+    private static final int CHECKOUTS = 500;
+
+    @Autowired
+    private StockManagementService stockManagementService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Product product;
+
+    @BeforeEach
+    void createProduct() {
+        String suffix = UUID.randomUUID().toString();
+        product = productRepository.save(Product.builder()
+                .name("Flash sale " + suffix)
+                .slug("flash-sale-" + suffix)
+                .price(BigDecimal.TEN)
+                .stock(INITIAL_STOCK)
+                .sku("FLASH-" + suffix)
+                .images(new ArrayList<>())
+                .attributes(new HashSet<>())
+                .active(true)
+                .build());
+    }
+
+    @AfterEach
+    void deleteProduct() {
+        productRepository.deleteById(product.getId());
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger lowestStock = new AtomicInteger(INITIAL_STOCK);
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                lowestStock.accumulateAndGet(currentStock(), Math::min);
+            }
+        });
+
+        List<Future<?>> checkouts = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CHECKOUTS)) {
+            for (int i = 0; i < CHECKOUTS; i++) {
+                Cart cart = cartFor(-1L - i);
+                checkouts.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        stockManagementService.reserveStockForCheckout(cart);
+                        reserved.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            sampler.start();
+            start.countDown();
+            for (Future<?> checkout : checkouts) {
+                checkout.get();
+            }
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+
+        assertThat(reserved.get()).isEqualTo(INITIAL_STOCK);
+        assertThat(rejected.get()).isEqualTo(CHECKOUTS - INITIAL_STOCK);
+        assertThat(lowestStock.get()).isGreaterThanOrEqualTo(0);
+        assertThat(currentStock()).isZero();
+    }
+
+    // The engine only reads the cart id and its lines, so the carts need not be persisted
+    private Cart cartFor(Long cartId) {
+        Cart cart = Cart.builder().id(cartId).items(new ArrayList<>()).build();
+        cart.getItems().add(CartItem.builder().cart(cart).product(product).quantity(1).build());
+        return cart;
+    }
+
+    private int currentStock() {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, product.getId());
+    }
+}
@@ -0,0 +1,55 @@
+package com.diya.support;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Records the SQL Hibernate prepares on the thread that started recording. Scheduled jobs keep
+// running in a @SpringBootTest context, and their statements must not end up in a test's count.
+public class StatementCounter implements StatementInspector {
+
+    private final List<String> statements = new ArrayList<>();
+    private volatile Thread recordingThread;
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == recordingThread) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public void start() {
+        statements.clear();
+        recordingThread = Thread.currentThread();
+    }
+
+    public List<String> stop() {
+        recordingThread = null;
+        return List.copyOf(statements);
+    }
+
+    public static long count(List<String> statements, Predicate<String> filter) {
+        return statements.stream().filter(filter).count();
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        public StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+        }
+    }
+}
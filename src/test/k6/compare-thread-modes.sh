@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Starts the packaged application on platform threads and then on virtual threads, runs
+# thread-modes.js against each and prints throughput and p99 side by side. Needs k6, jq and the
+# configured database; build the jar first with ./mvnw -DskipTests package.
+#
+#   RATE=800 DURATION=2m src/test/k6/compare-thread-modes.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/../../.."
+PORT="${PORT:-9090}"
+JAR="$(ls target/ecommerce-*.jar | grep -v plain | head -n 1)"
+
+for virtual in false true; do
+  java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" \
+    > "target/k6-app-virtual-$virtual.log" 2>&1 &
+  app=$!
+  trap 'kill "$app" 2>/dev/null || true' EXIT
+
+  until curl -s -o /dev/null "http://localhost:$PORT/api/v1/products?size=1"; do
+    sleep 1
+  done
+
+  k6 run --quiet --summary-export "target/k6-virtual-$virtual.json" \
+    -e BASE_URL="http://localhost:$PORT" src/test/k6/thread-modes.js
+
+  kill "$app"
+  wait "$app" || true
+done
+
+printf '%-10s %12s %10s %10s\n' "virtual" "requests/s" "p99 ms" "failed"
+for virtual in false true; do
+  jq -r --arg mode "$virtual" '[$mode,
+      (.metrics.http_reqs.rate | floor),
+      (.metrics.http_req_duration["p(99)"] * 100 | floor / 100),
+      (.metrics.http_req_failed.value * 10000 | floor / 100 | tostring + "%")] | @tsv' \
+    "target/k6-virtual-$virtual.json" | awk -F '\t' '{ printf "%-10s %12s %10s %10s\n", $1, $2, $3, $4 }'
+done
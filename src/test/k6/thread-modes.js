@@ -0,0 +1,58 @@
+// Load test for comparing platform and virtual request threads (spring.threads.virtual.enabled).
+// Holds a constant arrival rate of a mixed workload: database-backed product pages and carts, and
+// facet counts served from memory. Compare http_reqs (throughput) and http_req_duration p(99)
+// between runs; compare-thread-modes.sh runs it against both modes.
+//
+//   k6 run -e BASE_URL=http://localhost:9090 -e RATE=400 -e DURATION=2m src/test/k6/thread-modes.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:9090';
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+  scenarios: {
+    mixed: {
+      executor: 'constant-arrival-rate',
+      rate: Number(__ENV.RATE || 400),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '2m',
+      preAllocatedVUs: Number(__ENV.VUS || 200),
+      maxVUs: Number(__ENV.MAX_VUS || 2000),
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  const email = `k6-${Date.now()}@example.com`;
+  const password = 'k6-load-test';
+  http.post(`${BASE_URL}/api/v1/auth/register`, JSON.stringify({
+    firstName: 'Load', lastName: 'Test', email, password,
+  }), { headers: JSON_HEADERS });
+  const login = http.post(`${BASE_URL}/api/v1/auth/login`, JSON.stringify({ email, password }),
+    { headers: JSON_HEADERS });
+  check(login, { 'logged in': (r) => r.status === 200 });
+  return { token: login.json('accessToken') };
+}
+
+export default function (data) {
+  const pick = Math.random();
+  let response;
+  if (pick < 0.5) {
+    const page = Math.floor(Math.random() * 5);
+    response = http.get(`${BASE_URL}/api/v1/products?page=${page}&size=20`, { tags: { name: 'products' } });
+  } else if (pick < 0.8) {
+    response = http.get(`${BASE_URL}/api/v1/cart`, {
+      headers: { Authorization: `Bearer ${data.token}` },
+      tags: { name: 'cart' },
+    });
+  } else {
+    response = http.get(`${BASE_URL}/api/v1/products/facets`, { tags: { name: 'facets' } });
+  }
+  // A 503 means a request gave up waiting for a database connection
+  check(response, {
+    'ok': (r) => r.status === 200,
+    'not rejected': (r) => r.status !== 503,
+  });
+}